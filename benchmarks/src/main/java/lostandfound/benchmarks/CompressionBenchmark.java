@@ -0,0 +1,93 @@
+package lostandfound.benchmarks;
+
+import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.http.HttpClient;
+import io.vertx.core.http.HttpClientOptions;
+import io.vertx.core.http.HttpMethod;
+import io.vertx.core.http.HttpServer;
+import io.vertx.core.http.HttpVersion;
+import io.vertx.core.http.RequestOptions;
+import io.vertx.ext.web.Router;
+import lostandfound.config.Main;
+import lostandfound.config.middleware.CompressionThreshold;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+// A GET /api/items page through the server options Main uses, per Accept-Encoding and protocol (h2c
+// with prior knowledge for HTTP_2). The client does not decompress, so the setup line
+// "wire bytes" is what actually crosses the network for each combination.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CompressionBenchmark {
+
+    @Param({"20", "100"})
+    public int size;
+
+    @Param({"identity", "gzip", "deflate"})
+    public String encoding;
+
+    @Param({"HTTP_1_1", "HTTP_2"})
+    public String protocol;
+
+    private Vertx vertx;
+    private HttpServer server;
+    private HttpClient client;
+    private RequestOptions request;
+
+    @Setup
+    public void setUp() throws Exception {
+        vertx = Vertx.vertx();
+        Buffer page = Fixtures.itemList(size, false).toBuffer();
+
+        Router router = Router.router(vertx);
+        router.route().handler(CompressionThreshold::handle);
+        router.get("/api/items").handler(ctx -> ctx.response()
+                .putHeader("Content-Type", "application/json")
+                .end(page));
+
+        server = vertx.createHttpServer(Main.serverOptions()).requestHandler(router).listen(0)
+                .toCompletionStage().toCompletableFuture().get();
+        client = vertx.createHttpClient(new HttpClientOptions()
+                .setProtocolVersion(HttpVersion.valueOf(protocol))
+                .setHttp2ClearTextUpgrade(false)
+                .setDefaultPort(server.actualPort())
+                .setKeepAlive(true));
+        request = new RequestOptions()
+                .setMethod(HttpMethod.GET)
+                .setURI("/api/items")
+                .putHeader("Accept-Encoding", encoding);
+
+        System.out.println("wire bytes: " + fetch().length() + " (uncompressed " + page.length() + ")");
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        client.close();
+        server.close().toCompletionStage().toCompletableFuture().get();
+        vertx.close().toCompletionStage().toCompletableFuture().get();
+    }
+
+    @Benchmark
+    public Buffer fetch() throws Exception {
+        return client.request(request)
+                .compose(req -> req.send().compose(response -> response.body()))
+                .toCompletionStage().toCompletableFuture().get();
+    }
+}
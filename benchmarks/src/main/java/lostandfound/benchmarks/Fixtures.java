@@ -0,0 +1,65 @@
+package lostandfound.benchmarks;
+
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+
+import java.util.Base64;
+import java.util.Random;
+
+// Item data shaped like production documents
+final class Fixtures {
+    // A typical phone photo after the client's own compression, as the old photoData field stored it
+    static final int PHOTO_BYTES = 150 * 1024;
+
+    private static final String[] LOCATIONS = {"Library", "Canteen", "Block A", "Block B", "Auditorium", "Parking"};
+
+    private Fixtures() {
+    }
+
+    static JsonObject itemBody(boolean withPhotoData) {
+        JsonObject body = new JsonObject()
+                .put("title", "Black leather wallet")
+                .put("description", "Lost near the second floor stairs, has a college ID card and a bus pass inside.")
+                .put("status", "lost")
+                .put("categoryId", "65f1c2a9e4b0a1b2c3d4e5f6")
+                .put("location", "Library");
+        if (withPhotoData) {
+            body.put("photoData", "data:image/jpeg;base64," + randomBase64(PHOTO_BYTES, 1));
+        }
+        return body;
+    }
+
+    static JsonArray itemList(int size, boolean withPhotoData) {
+        Random random = new Random(42);
+        String photoData = withPhotoData ? "data:image/jpeg;base64," + randomBase64(PHOTO_BYTES, 2) : null;
+
+        JsonArray items = new JsonArray();
+        for (int i = 0; i < size; i++) {
+            String hash = String.format("%064x", random.nextLong() & Long.MAX_VALUE);
+            JsonObject item = new JsonObject()
+                    .put("_id", String.format("%024x", i))
+                    .put("title", "Item " + i + " black leather wallet")
+                    .put("description", "Lost near the second floor stairs, has a college ID card and a bus pass inside.")
+                    .put("status", i % 2 == 0 ? "lost" : "found")
+                    .put("isClaimed", i % 5 == 0)
+                    .put("categoryId", "65f1c2a9e4b0a1b2c3d4e5f" + (i % 6))
+                    .put("location", LOCATIONS[i % LOCATIONS.length])
+                    .put("contact", "student" + i + "@kristujayanti.com")
+                    .put("postedBy", "student" + i + "@kristujayanti.com")
+                    .put("createdAt", 1_700_000_000_000L + i * 60_000L)
+                    .put("photoUrl", "/uploads/" + hash.substring(0, 2) + "/" + hash + ".jpg")
+                    .put("thumbUrl", "/uploads/" + hash.substring(0, 2) + "/" + hash + "_thumb.jpg");
+            if (withPhotoData) {
+                item.put("photoData", photoData);
+            }
+            items.add(item);
+        }
+        return items;
+    }
+
+    static String randomBase64(int bytes, long seed) {
+        byte[] data = new byte[bytes];
+        new Random(seed).nextBytes(data);
+        return Base64.getEncoder().encodeToString(data);
+    }
+}
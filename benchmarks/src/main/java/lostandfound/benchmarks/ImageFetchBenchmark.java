@@ -0,0 +1,121 @@
+package lostandfound.benchmarks;
+
+import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.http.HttpClient;
+import io.vertx.core.http.HttpClientOptions;
+import io.vertx.core.http.HttpMethod;
+import io.vertx.core.http.HttpServer;
+import io.vertx.core.http.RequestOptions;
+import io.vertx.ext.web.Router;
+import lostandfound.config.Main;
+import lostandfound.config.handlers.UploadsHandler;
+import lostandfound.config.utils.ImageStore;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// GET /uploads/* over a real HTTP connection: a small image (served from ImageCache), a large one
+// (from disk) and a revalidation (304). The server uses Main.serverOptions(), so compression=true is what
+// production runs; compression=false shows what sendfile would gain for the large image.
+// Writes its fixtures under ./uploads and removes them afterwards.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 3)
+@Measurement(iterations = 5, time = 3)
+@Threads(8)
+@Fork(1)
+public class ImageFetchBenchmark {
+    @Param({"true", "false"})
+    public boolean compression;
+
+    private Vertx vertx;
+    private HttpServer server;
+    private HttpClient client;
+    private final List<ImageStore.StoredImage> stored = new ArrayList<>();
+    private String smallUrl;
+    private String largeUrl;
+    private String largeEtag;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        vertx = Vertx.vertx();
+        smallUrl = store(40 * 1024, 1);
+        largeUrl = store(2 * 1024 * 1024, 2);
+        largeEtag = "\"" + stored.get(stored.size() - 1).hash() + "\""; // what a browser sends back
+
+        Router router = Router.router(vertx);
+        new UploadsHandler(vertx).setupRoutes(router);
+        server = vertx.createHttpServer(Main.serverOptions().setCompressionSupported(compression))
+                .requestHandler(router).listen(0).toCompletionStage().toCompletableFuture().get();
+        client = vertx.createHttpClient(new HttpClientOptions()
+                .setDefaultPort(server.actualPort())
+                .setKeepAlive(true)
+                .setMaxPoolSize(16));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        client.close();
+        server.close().toCompletionStage().toCompletableFuture().get();
+        for (ImageStore.StoredImage image : stored) {
+            vertx.fileSystem().deleteBlocking(image.filePath());
+        }
+        vertx.close().toCompletionStage().toCompletableFuture().get();
+    }
+
+    @Benchmark
+    public Buffer fetchSmallFromMemory() throws Exception {
+        return fetch(smallUrl, null);
+    }
+
+    @Benchmark
+    public Buffer fetchLargeFromDisk() throws Exception {
+        return fetch(largeUrl, null);
+    }
+
+    @Benchmark
+    public Buffer revalidate() throws Exception {
+        return fetch(largeUrl, largeEtag);
+    }
+
+    private Buffer fetch(String url, String ifNoneMatch) throws Exception {
+        RequestOptions options = new RequestOptions().setMethod(HttpMethod.GET).setURI(url);
+        if (ifNoneMatch != null) {
+            options.putHeader("If-None-Match", ifNoneMatch);
+        }
+        return client.request(options)
+                .compose(request -> request.send().compose(response -> response.body()))
+                .toCompletionStage().toCompletableFuture().get();
+    }
+
+    // A JPEG header followed by random bytes: enough for the store's type check
+    private String store(int bytes, long seed) throws Exception {
+        byte[] data = new byte[bytes];
+        new Random(seed).nextBytes(data);
+        data[0] = (byte) 0xFF;
+        data[1] = (byte) 0xD8;
+        data[2] = (byte) 0xFF;
+
+        ImageStore.StoredImage image = ImageStore.store(vertx, data).toCompletionStage().toCompletableFuture().get();
+        stored.add(image);
+        return image.url();
+    }
+}
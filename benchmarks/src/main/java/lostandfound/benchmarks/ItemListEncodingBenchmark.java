@@ -0,0 +1,59 @@
+package lostandfound.benchmarks;
+
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.json.JsonArray;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+// Encoding a GET /api/items page on the event loop: a default page (20), the max page (100) and the
+// old unpaginated list, with and without the base64 photoData that used to be embedded in every item
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ItemListEncodingBenchmark {
+
+    @Param({"20", "100", "500"})
+    public int size;
+
+    @Param({"false", "true"})
+    public boolean withPhotoData;
+
+    private JsonArray items;
+    private Buffer encoded;
+
+    @Setup
+    public void setUp() {
+        items = Fixtures.itemList(size, withPhotoData);
+        encoded = items.toBuffer();
+    }
+
+    @Benchmark
+    public String encode() {
+        return items.encode();
+    }
+
+    @Benchmark
+    public Buffer toBuffer() {
+        return items.toBuffer();
+    }
+
+    // What a client (or the cache warmer) pays to read the page back
+    @Benchmark
+    public JsonArray decode() {
+        return new JsonArray(encoded);
+    }
+}
@@ -0,0 +1,91 @@
+package lostandfound.benchmarks;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import lostandfound.config.utils.JwtUtil;
+import lostandfound.config.utils.TokenCache;
+import lostandfound.config.utils.VerifiedToken;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import javax.crypto.SecretKey;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+// Token issue and check costs: what login pays once and every protected request pays per call.
+// legacyAuth is the per-request cost before user-001; compare it with parseToken and verifyCached.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtBenchmark {
+    // Same key as JwtUtil, so legacyAuth checks the same token
+    private static final SecretKey SECRET_KEY = Keys.hmacShaKeyFor(
+            "your_super_secret_key_that_is_long_enough_123".getBytes(StandardCharsets.UTF_8));
+
+    private String token;
+
+    @Setup
+    public void setUp() {
+        token = JwtUtil.createToken("student@kristujayanti.com", "user");
+        JwtUtil.verify(token); // primes TokenCache for the cached case
+    }
+
+    @Benchmark
+    public String createToken() {
+        return JwtUtil.createToken("student@kristujayanti.com", "user");
+    }
+
+    @Benchmark
+    public boolean validateToken() {
+        return JwtUtil.validateToken(token);
+    }
+
+    @Benchmark
+    public String getEmailFromToken() {
+        return JwtUtil.getEmailFromToken(token);
+    }
+
+    @Benchmark
+    public String getRoleFromToken() {
+        return JwtUtil.getRoleFromToken(token);
+    }
+
+    // What AuthMiddleware did per request before user-001: validateToken, getEmailFromToken and
+    // getRoleFromToken, each building a fresh parser and checking the signature again
+    @Benchmark
+    public String legacyAuth() {
+        Jwts.parserBuilder().setSigningKey(SECRET_KEY).build().parseClaimsJws(token);
+        Claims forEmail = Jwts.parserBuilder().setSigningKey(SECRET_KEY).build().parseClaimsJws(token).getBody();
+        Claims forRole = Jwts.parserBuilder().setSigningKey(SECRET_KEY).build().parseClaimsJws(token).getBody();
+        return forEmail.getSubject() + forRole.get("role", String.class);
+    }
+
+    // One signature check for all claims, no cache
+    @Benchmark
+    public VerifiedToken parseToken() {
+        return JwtUtil.parseToken(token);
+    }
+
+    // What AuthMiddleware does on a repeat request
+    @Benchmark
+    public VerifiedToken verifyCached() {
+        return JwtUtil.verify(token);
+    }
+
+    @Benchmark
+    public VerifiedToken tokenCacheGet() {
+        return TokenCache.get(token);
+    }
+}
@@ -0,0 +1,47 @@
+package lostandfound.benchmarks;
+
+import io.vertx.core.json.JsonObject;
+import lostandfound.config.models.Item;
+import lostandfound.config.models.User;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ModelBenchmark {
+    private JsonObject itemBody;
+    private JsonObject userBody;
+
+    @Setup
+    public void setUp() {
+        itemBody = Fixtures.itemBody(false);
+        userBody = new JsonObject()
+                .put("name", "Student")
+                .put("email", "student@kristujayanti.com")
+                .put("password", "correct horse battery staple");
+    }
+
+    @Benchmark
+    public JsonObject itemToMongoDoc() {
+        return Item.toMongoDoc(itemBody, "student@kristujayanti.com");
+    }
+
+    @Benchmark
+    public JsonObject userToMongoDoc() {
+        return User.toMongoDoc(userBody, "$2a$12$hash", "verify-token", 0L);
+    }
+}
@@ -0,0 +1,59 @@
+package lostandfound.loadtest;
+
+import io.vertx.core.json.JsonObject;
+import lostandfound.config.utils.Metrics;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+// The app's vertx_event_loop_lag_seconds histogram (fed by MetricsServer's probes), read from the
+// in-process registry and summed over every loop. Two snapshots give the lag during the measured
+// window only; percentiles are bucket upper bounds, so they read as "at most" (null past the last one).
+class EventLoopLag {
+    private static final String BUCKET = "vertx_event_loop_lag_seconds_bucket{";
+
+    // Cumulative probe count per bucket upper bound, in seconds
+    private final Map<Double, Long> buckets = new TreeMap<>();
+
+    static EventLoopLag snapshot() {
+        EventLoopLag lag = new EventLoopLag();
+        for (String line : Metrics.scrape().split("\n")) {
+            if (!line.startsWith(BUCKET)) {
+                continue;
+            }
+            int le = line.indexOf("le=\"") + 4;
+            String bound = line.substring(le, line.indexOf('"', le));
+            double upper = bound.equals("+Inf") ? Double.POSITIVE_INFINITY : Double.parseDouble(bound);
+            long count = Long.parseLong(line.substring(line.lastIndexOf(' ') + 1));
+            lag.buckets.merge(upper, count, Long::sum);
+        }
+        return lag;
+    }
+
+    // Probes between the two snapshots; null when the probes weren't running (METRICS_PORT=0)
+    static JsonObject between(EventLoopLag start, EventLoopLag end) {
+        if (start == null || end == null) {
+            return null;
+        }
+        Map<Double, Long> window = new TreeMap<>();
+        end.buckets.forEach((upper, count) -> window.put(upper, count - start.buckets.getOrDefault(upper, 0L)));
+        long samples = window.getOrDefault(Double.POSITIVE_INFINITY, 0L);
+        if (samples == 0) {
+            return null;
+        }
+        return new JsonObject()
+                .put("samples", samples)
+                .put("p50Ms", upperMillis(window, samples * 0.5))
+                .put("p99Ms", upperMillis(window, samples * 0.99))
+                .put("maxMs", upperMillis(window, samples));
+    }
+
+    private static Double upperMillis(Map<Double, Long> window, double rank) {
+        for (Map.Entry<Double, Long> bucket : window.entrySet()) {
+            if (bucket.getValue() >= rank) {
+                return Double.isInfinite(bucket.getKey()) ? null : bucket.getKey() * 1000;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,356 @@
+package lostandfound.loadtest;
+
+import io.vertx.core.AbstractVerticle;
+import io.vertx.core.Promise;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.net.NetServer;
+import io.vertx.core.net.NetSocket;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+
+// In-memory RESP2 server with the commands the app sends (strings, hashes, SCAN, pub/sub).
+// Deployed as a single verticle, so all state is touched from one event loop.
+public class FakeRedis extends AbstractVerticle {
+    private final Map<String, String> strings = new HashMap<>();
+    private final Map<String, Map<String, String>> hashes = new HashMap<>();
+    private final Map<String, Long> expiresAt = new HashMap<>();
+    private final Map<String, Set<NetSocket>> subscribers = new HashMap<>();
+    private final AtomicLong commands = new AtomicLong();
+    private NetServer server;
+
+    @Override
+    public void start(Promise<Void> startPromise) {
+        server = vertx.createNetServer();
+        server.connectHandler(this::handleConnection)
+                .listen(0, "127.0.0.1")
+                .onSuccess(s -> startPromise.complete())
+                .onFailure(startPromise::fail);
+    }
+
+    public int port() {
+        return server.actualPort();
+    }
+
+    public long commandCount() {
+        return commands.get();
+    }
+
+    private void handleConnection(NetSocket socket) {
+        RespParser parser = new RespParser();
+        socket.handler(data -> {
+            parser.append(data);
+            List<String> command;
+            while ((command = parser.next()) != null) {
+                commands.incrementAndGet();
+                socket.write(execute(socket, command));
+            }
+        });
+        socket.closeHandler(v -> subscribers.values().forEach(set -> set.remove(socket)));
+    }
+
+    private Buffer execute(NetSocket socket, List<String> cmd) {
+        String name = cmd.get(0).toUpperCase();
+        switch (name) {
+            case "PING":
+                return simple("PONG");
+            case "HELLO":
+                // Answer like Redis 5 so the client falls back to RESP2
+                return error("ERR unknown command 'HELLO'");
+            case "SELECT":
+            case "AUTH":
+            case "CLIENT":
+                return simple("OK");
+            case "GET": {
+                expire(cmd.get(1));
+                return bulk(strings.get(cmd.get(1)));
+            }
+            case "SET": {
+                String key = cmd.get(1);
+                expire(key);
+                boolean nx = false;
+                Long ttlMillis = null;
+                for (int i = 3; i < cmd.size(); i++) {
+                    String option = cmd.get(i).toUpperCase();
+                    if (option.equals("NX")) {
+                        nx = true;
+                    } else if (option.equals("EX")) {
+                        ttlMillis = Long.parseLong(cmd.get(++i)) * 1000;
+                    } else if (option.equals("PX")) {
+                        ttlMillis = Long.parseLong(cmd.get(++i));
+                    }
+                }
+                if (nx && exists(key)) {
+                    return bulk(null);
+                }
+                put(key, cmd.get(2), ttlMillis);
+                return simple("OK");
+            }
+            case "SETEX":
+                put(cmd.get(1), cmd.get(3), Long.parseLong(cmd.get(2)) * 1000);
+                return simple("OK");
+            case "DEL":
+            case "EXISTS": {
+                int count = 0;
+                for (String key : cmd.subList(1, cmd.size())) {
+                    expire(key);
+                    if (exists(key)) {
+                        count++;
+                        if (name.equals("DEL")) {
+                            remove(key);
+                        }
+                    }
+                }
+                return integer(count);
+            }
+            case "EXPIRE": {
+                String key = cmd.get(1);
+                expire(key);
+                if (!exists(key)) {
+                    return integer(0);
+                }
+                expiresAt.put(key, System.currentTimeMillis() + Long.parseLong(cmd.get(2)) * 1000);
+                return integer(1);
+            }
+            case "TTL": {
+                String key = cmd.get(1);
+                expire(key);
+                if (!exists(key)) {
+                    return integer(-2);
+                }
+                Long at = expiresAt.get(key);
+                return integer(at == null ? -1 : Math.max(0, (at - System.currentTimeMillis()) / 1000));
+            }
+            case "INCR":
+            case "INCRBY": {
+                String key = cmd.get(1);
+                expire(key);
+                long value = Long.parseLong(strings.getOrDefault(key, "0"))
+                        + (name.equals("INCR") ? 1 : Long.parseLong(cmd.get(2)));
+                strings.put(key, Long.toString(value));
+                return integer(value);
+            }
+            case "HSET": {
+                Map<String, String> hash = hashes.computeIfAbsent(cmd.get(1), k -> new LinkedHashMap<>());
+                int added = 0;
+                for (int i = 2; i + 1 < cmd.size(); i += 2) {
+                    if (hash.put(cmd.get(i), cmd.get(i + 1)) == null) {
+                        added++;
+                    }
+                }
+                return integer(added);
+            }
+            case "HGET": {
+                Map<String, String> hash = hashes.get(cmd.get(1));
+                return bulk(hash == null ? null : hash.get(cmd.get(2)));
+            }
+            case "HGETALL": {
+                List<String> flat = new ArrayList<>();
+                hashes.getOrDefault(cmd.get(1), Map.of()).forEach((field, value) -> {
+                    flat.add(field);
+                    flat.add(value);
+                });
+                return array(flat);
+            }
+            case "HINCRBY": {
+                Map<String, String> hash = hashes.computeIfAbsent(cmd.get(1), k -> new LinkedHashMap<>());
+                long value = Long.parseLong(hash.getOrDefault(cmd.get(2), "0")) + Long.parseLong(cmd.get(3));
+                hash.put(cmd.get(2), Long.toString(value));
+                return integer(value);
+            }
+            case "RENAME": {
+                String from = cmd.get(1);
+                String to = cmd.get(2);
+                expire(from);
+                if (!exists(from)) {
+                    return error("ERR no such key");
+                }
+                remove(to);
+                if (strings.containsKey(from)) {
+                    strings.put(to, strings.remove(from));
+                } else {
+                    hashes.put(to, hashes.remove(from));
+                }
+                Long at = expiresAt.remove(from);
+                if (at != null) {
+                    expiresAt.put(to, at);
+                }
+                return simple("OK");
+            }
+            case "SCAN": {
+                // One pass returns everything, with cursor 0 to end the iteration
+                Pattern match = null;
+                for (int i = 2; i + 1 < cmd.size(); i += 2) {
+                    if (cmd.get(i).equalsIgnoreCase("MATCH")) {
+                        match = glob(cmd.get(i + 1));
+                    }
+                }
+                List<String> keys = new ArrayList<>();
+                Set<String> all = new HashSet<>(strings.keySet());
+                all.addAll(hashes.keySet());
+                for (String key : all) {
+                    expire(key);
+                    if (exists(key) && (match == null || match.matcher(key).matches())) {
+                        keys.add(key);
+                    }
+                }
+                return Buffer.buffer("*2\r\n").appendBuffer(bulk("0")).appendBuffer(array(keys));
+            }
+            case "PUBLISH": {
+                Set<NetSocket> sockets = subscribers.getOrDefault(cmd.get(1), Set.of());
+                Buffer message = array(List.of("message", cmd.get(1), cmd.get(2)));
+                sockets.forEach(s -> s.write(message));
+                return integer(sockets.size());
+            }
+            case "SUBSCRIBE": {
+                Buffer reply = Buffer.buffer();
+                for (String channel : cmd.subList(1, cmd.size())) {
+                    subscribers.computeIfAbsent(channel, c -> new HashSet<>()).add(socket);
+                    reply.appendString("*3\r\n").appendBuffer(bulk("subscribe")).appendBuffer(bulk(channel))
+                            .appendBuffer(integer(subscriptionCount(socket)));
+                }
+                return reply;
+            }
+            default:
+                return error("ERR unknown command '" + cmd.get(0) + "'");
+        }
+    }
+
+    private void put(String key, String value, Long ttlMillis) {
+        remove(key);
+        strings.put(key, value);
+        if (ttlMillis != null) {
+            expiresAt.put(key, System.currentTimeMillis() + ttlMillis);
+        }
+    }
+
+    private boolean exists(String key) {
+        return strings.containsKey(key) || hashes.containsKey(key);
+    }
+
+    private void remove(String key) {
+        strings.remove(key);
+        hashes.remove(key);
+        expiresAt.remove(key);
+    }
+
+    // Lazy expiry, checked whenever a key is read
+    private void expire(String key) {
+        Long at = expiresAt.get(key);
+        if (at != null && at <= System.currentTimeMillis()) {
+            remove(key);
+        }
+    }
+
+    private int subscriptionCount(NetSocket socket) {
+        int count = 0;
+        for (Set<NetSocket> sockets : subscribers.values()) {
+            if (sockets.contains(socket)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private static Pattern glob(String pattern) {
+        StringBuilder regex = new StringBuilder();
+        for (char c : pattern.toCharArray()) {
+            if (c == '*') {
+                regex.append(".*");
+            } else if (c == '?') {
+                regex.append('.');
+            } else {
+                regex.append(Pattern.quote(String.valueOf(c)));
+            }
+        }
+        return Pattern.compile(regex.toString());
+    }
+
+    private static Buffer simple(String value) {
+        return Buffer.buffer("+" + value + "\r\n");
+    }
+
+    private static Buffer error(String message) {
+        return Buffer.buffer("-" + message + "\r\n");
+    }
+
+    private static Buffer integer(long value) {
+        return Buffer.buffer(":" + value + "\r\n");
+    }
+
+    private static Buffer bulk(String value) {
+        if (value == null) {
+            return Buffer.buffer("$-1\r\n");
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        return Buffer.buffer("$" + bytes.length + "\r\n").appendBytes(bytes).appendString("\r\n");
+    }
+
+    private static Buffer array(List<String> values) {
+        Buffer buffer = Buffer.buffer("*" + values.size() + "\r\n");
+        values.forEach(value -> buffer.appendBuffer(bulk(value)));
+        return buffer;
+    }
+
+    // Accumulates socket data and yields complete "*N $len ..." commands
+    private static final class RespParser {
+        private Buffer pending = Buffer.buffer();
+        private int pos;
+
+        void append(Buffer data) {
+            if (pos > 0) {
+                pending = pending.getBuffer(pos, pending.length());
+                pos = 0;
+            }
+            pending.appendBuffer(data);
+        }
+
+        List<String> next() {
+            int start = pos;
+            String header = line();
+            if (header == null) {
+                return null;
+            }
+            if (header.charAt(0) != '*') {
+                // Inline command, e.g. "PING" typed into telnet
+                return List.of(header.trim().split("\\s+"));
+            }
+            int count = Integer.parseInt(header.substring(1));
+            List<String> args = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                String length = line();
+                if (length == null) {
+                    pos = start;
+                    return null;
+                }
+                int size = Integer.parseInt(length.substring(1));
+                if (pending.length() < pos + size + 2) {
+                    pos = start;
+                    return null;
+                }
+                args.add(pending.getString(pos, pos + size, "UTF-8"));
+                pos += size + 2;
+            }
+            return args;
+        }
+
+        private String line() {
+            for (int i = pos; i + 1 < pending.length(); i++) {
+                if (pending.getByte(i) == '\r' && pending.getByte(i + 1) == '\n') {
+                    String line = pending.getString(pos, i);
+                    pos = i + 2;
+                    return line;
+                }
+            }
+            return null;
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package lostandfound.loadtest;
+
+import io.vertx.core.AbstractVerticle;
+import io.vertx.core.Promise;
+import io.vertx.core.net.NetServer;
+import io.vertx.core.net.NetSocket;
+import io.vertx.core.parsetools.RecordParser;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+// SMTP sink: accepts every message without STARTTLS or AUTH and just counts it
+public class FakeSmtp extends AbstractVerticle {
+    private final AtomicLong delivered = new AtomicLong();
+    private final AtomicLong sessions = new AtomicLong();
+    private NetServer server;
+
+    @Override
+    public void start(Promise<Void> startPromise) {
+        server = vertx.createNetServer();
+        server.connectHandler(this::handleConnection)
+                .listen(0, "127.0.0.1")
+                .onSuccess(s -> startPromise.complete())
+                .onFailure(startPromise::fail);
+    }
+
+    public int port() {
+        return server.actualPort();
+    }
+
+    public long deliveredCount() {
+        return delivered.get();
+    }
+
+    public long sessionCount() {
+        return sessions.get();
+    }
+
+    private void handleConnection(NetSocket socket) {
+        sessions.incrementAndGet();
+        boolean[] inData = {false};
+
+        RecordParser parser = RecordParser.newDelimited("\r\n", line -> {
+            String text = line.toString();
+            if (inData[0]) {
+                if (text.equals(".")) {
+                    inData[0] = false;
+                    delivered.incrementAndGet();
+                    socket.write("250 OK queued\r\n");
+                }
+                return;
+            }
+
+            String verb = text.length() < 4 ? text.toUpperCase() : text.substring(0, 4).toUpperCase();
+            switch (verb) {
+                case "EHLO":
+                    socket.write("250-localhost\r\n250-8BITMIME\r\n250 SIZE 10485760\r\n");
+                    break;
+                case "HELO":
+                    socket.write("250 localhost\r\n");
+                    break;
+                case "DATA":
+                    inData[0] = true;
+                    socket.write("354 End data with <CR><LF>.<CR><LF>\r\n");
+                    break;
+                case "QUIT":
+                    socket.write("221 Bye\r\n").onComplete(v -> socket.close());
+                    break;
+                case "MAIL":
+                case "RCPT":
+                case "RSET":
+                case "NOOP":
+                    socket.write("250 OK\r\n");
+                    break;
+                default:
+                    socket.write("502 Command not implemented\r\n");
+            }
+        });
+
+        socket.handler(parser);
+        socket.write("220 localhost fake SMTP ready\r\n");
+    }
+}
@@ -0,0 +1,114 @@
+package lostandfound.loadtest;
+
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import io.vertx.ext.mongo.BulkOperation;
+import io.vertx.ext.mongo.MongoClient;
+import lostandfound.config.models.Item;
+import lostandfound.config.models.User;
+import lostandfound.config.utils.PasswordUtil;
+import org.bson.types.ObjectId;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+// Users and items written straight into Mongo before the app starts, so SearchIndex and the
+// stats counters load them like production data. Every item has one non-poster user in
+// claimedRequests, which is who the claim workload claims it as.
+public class Fixture {
+    static final String PASSWORD = "loadtest-password";
+    static final String[] LOCATIONS = {"Library", "Canteen", "Block A", "Block B", "Auditorium", "Parking", "Hostel"};
+    static final String[] WORDS = {"wallet", "phone", "keys", "bottle", "umbrella", "charger", "earphones",
+            "calculator", "jacket", "watch", "bag", "id card", "notebook", "spectacles"};
+    static final String[] COLOURS = {"black", "blue", "red", "silver", "brown", "green", "white"};
+
+    private static final int BATCH = 500;
+
+    final List<String> users = new ArrayList<>();
+    final List<String> tokens = new ArrayList<>();
+    final List<String> itemIds = new ArrayList<>();
+    final List<Integer> posters = new ArrayList<>();
+    final List<Integer> claimers = new ArrayList<>();
+    final List<String> categoryIds = new ArrayList<>();
+
+    static Future<Fixture> seed(Vertx vertx, String mongoUri, String dbName, int userCount, int itemCount) {
+        MongoClient mongo = MongoClient.createShared(vertx, new JsonObject()
+                .put("connection_string", mongoUri)
+                .put("db_name", dbName), "loadtest-seed");
+        Fixture fixture = new Fixture();
+        Random random = new Random(7);
+
+        return mongo.getCollections()
+                .compose(names -> Future.all(names.stream().map(mongo::dropCollection).toList()))
+                .compose(v -> vertx.executeBlocking(() -> PasswordUtil.hashPassword(PASSWORD), false))
+                .compose(hash -> {
+                    List<BulkOperation> users = new ArrayList<>();
+                    for (int i = 0; i < userCount; i++) {
+                        String email = "loadtest" + i + "@kristujayanti.com";
+                        fixture.users.add(email);
+                        JsonObject body = new JsonObject().put("name", "Load Test " + i).put("email", email);
+                        users.add(BulkOperation.createInsert(User.toMongoDoc(body, hash, null, 0L)
+                                .put("isVerified", true)));
+                    }
+                    return insertInBatches(mongo, "users", users);
+                })
+                .compose(v -> {
+                    List<BulkOperation> categories = new ArrayList<>();
+                    for (String word : WORDS) {
+                        String id = new ObjectId().toHexString();
+                        fixture.categoryIds.add(id);
+                        categories.add(BulkOperation.createInsert(new JsonObject()
+                                .put("_id", id)
+                                .put("name", word)
+                                .put("description", "Load test category")
+                                .put("createdAt", System.currentTimeMillis())));
+                    }
+                    return insertInBatches(mongo, "categories", categories);
+                })
+                .compose(v -> {
+                    List<BulkOperation> items = new ArrayList<>();
+                    long now = System.currentTimeMillis();
+                    for (int i = 0; i < itemCount; i++) {
+                        int poster = random.nextInt(userCount);
+                        int claimer = (poster + 1 + random.nextInt(userCount - 1)) % userCount;
+                        String id = new ObjectId().toHexString();
+                        fixture.itemIds.add(id);
+                        fixture.posters.add(poster);
+                        fixture.claimers.add(claimer);
+
+                        JsonObject doc = Item.toMongoDoc(fixture.itemBody(random), fixture.users.get(poster))
+                                .put("_id", id)
+                                .put("createdAt", now - random.nextInt(20 * 24 * 60) * 60_000L)
+                                .put("claimedRequests", new JsonArray().add(fixture.users.get(claimer)));
+                        items.add(BulkOperation.createInsert(doc));
+                    }
+                    return insertInBatches(mongo, "items", items);
+                })
+                .eventually(() -> mongo.close())
+                .map(fixture);
+    }
+
+    JsonObject itemBody(Random random) {
+        int word = random.nextInt(WORDS.length);
+        String title = COLOURS[random.nextInt(COLOURS.length)] + " " + WORDS[word];
+        return new JsonObject()
+                .put("title", title)
+                .put("description", "Load test item: " + title + " left near the "
+                        + LOCATIONS[random.nextInt(LOCATIONS.length)].toLowerCase())
+                .put("status", random.nextBoolean() ? "lost" : "found")
+                .put("categoryId", categoryIds.get(word))
+                .put("location", LOCATIONS[random.nextInt(LOCATIONS.length)]);
+    }
+
+    private static Future<Void> insertInBatches(MongoClient mongo, String collection, List<BulkOperation> operations) {
+        Future<Void> chain = Future.succeededFuture();
+        for (int i = 0; i < operations.size(); i += BATCH) {
+            List<BulkOperation> batch = operations.subList(i, Math.min(i + BATCH, operations.size()));
+            chain = chain.compose(v -> mongo.bulkWrite(collection, batch).mapEmpty());
+        }
+        return chain;
+    }
+}
@@ -0,0 +1,218 @@
+package lostandfound.loadtest;
+
+import io.vertx.core.AbstractVerticle;
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+import io.vertx.core.http.HttpClient;
+import io.vertx.core.http.HttpClientOptions;
+import io.vertx.core.json.JsonObject;
+import org.HdrHistogram.Histogram;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+// Open-loop driver: requests go out on a fixed schedule at the target rate whether or not earlier
+// ones have finished, and latency is measured from the scheduled send time. A slow server therefore
+// shows up as queueing in the percentiles instead of quietly lowering the request rate.
+public class LoadDriver extends AbstractVerticle {
+    private static final long MAX_LATENCY_MICROS = TimeUnit.MINUTES.toMicros(5);
+    private static final int LOGIN_BATCH = 10;
+
+    private final LoadTest.Options options;
+    private final Fixture fixture;
+    private final Promise<JsonObject> result;
+
+    private final Map<String, Histogram> histograms = new TreeMap<>();
+    private final Map<String, Map<String, Long>> outcomes = new TreeMap<>();
+    private final Histogram all = new Histogram(MAX_LATENCY_MICROS, 3);
+    private final Random random = new Random(11);
+
+    private HttpClient client;
+    private Workload workload;
+    private long startNanos;
+    private long measureFromNanos;
+    private long stopAtNanos;
+    private long intervalNanos;
+    private long scheduled;
+    private long inFlight;
+    private long dropped;
+    private long timerId;
+    private EventLoopLag lagAtStart;
+    private EventLoopLag lagAtEnd;
+
+    public LoadDriver(LoadTest.Options options, Fixture fixture, Promise<JsonObject> result) {
+        this.options = options;
+        this.fixture = fixture;
+        this.result = result;
+    }
+
+    @Override
+    public void start(Promise<Void> startPromise) {
+        client = vertx.createHttpClient(new HttpClientOptions()
+                .setDefaultHost("127.0.0.1")
+                .setDefaultPort(options.httpPort)
+                .setKeepAlive(true)
+                .setMaxPoolSize(options.connections));
+        workload = new Workload(client, fixture, options.mix);
+
+        // Tokens for every user up front; batched so the password pool's queue is not overrun
+        loginAll(0).onSuccess(v -> {
+            System.out.println("🔑 Logged in " + fixture.tokens.size() + " users, starting load at "
+                    + options.rps + " req/s");
+            startPromise.complete();
+            run();
+        }).onFailure(startPromise::fail);
+    }
+
+    private Future<Void> loginAll(int from) {
+        if (from >= fixture.users.size()) {
+            return Future.succeededFuture();
+        }
+        List<Future<String>> batch = new ArrayList<>();
+        for (int i = from; i < Math.min(from + LOGIN_BATCH, fixture.users.size()); i++) {
+            batch.add(workload.login(fixture.users.get(i)));
+        }
+        return Future.all(batch).compose(done -> {
+            for (int i = 0; i < batch.size(); i++) {
+                fixture.tokens.add(done.resultAt(i));
+            }
+            return loginAll(from + LOGIN_BATCH);
+        });
+    }
+
+    private void run() {
+        intervalNanos = TimeUnit.SECONDS.toNanos(1) / options.rps;
+        startNanos = System.nanoTime();
+        measureFromNanos = startNanos + TimeUnit.SECONDS.toNanos(options.warmupSeconds);
+        stopAtNanos = measureFromNanos + TimeUnit.SECONDS.toNanos(options.durationSeconds);
+        vertx.setTimer(Math.max(1, TimeUnit.SECONDS.toMillis(options.warmupSeconds)),
+                id -> lagAtStart = EventLoopLag.snapshot());
+
+        // A 1ms tick sends everything that has come due since the last one
+        timerId = vertx.setPeriodic(1, id -> tick());
+    }
+
+    private void tick() {
+        long now = System.nanoTime();
+        long due = Math.min(now, stopAtNanos);
+        while (startNanos + scheduled * intervalNanos <= due) {
+            fire(startNanos + scheduled * intervalNanos);
+            scheduled++;
+        }
+        if (now >= stopAtNanos) {
+            vertx.cancelTimer(timerId);
+            lagAtEnd = EventLoopLag.snapshot();
+            drain(now + TimeUnit.SECONDS.toNanos(options.drainSeconds));
+        }
+    }
+
+    private void fire(long intendedNanos) {
+        String operation = workload.pick(random);
+        boolean measured = intendedNanos >= measureFromNanos;
+        if (inFlight >= options.maxInFlight) {
+            if (measured) {
+                dropped++;
+                count(operation, "dropped");
+            }
+            return;
+        }
+
+        inFlight++;
+        workload.run(operation, random).onComplete(ar -> {
+            inFlight--;
+            if (!measured) {
+                return;
+            }
+            long micros = Math.max(1, (System.nanoTime() - intendedNanos) / 1000);
+            record(operation, Math.min(micros, MAX_LATENCY_MICROS));
+            if (ar.succeeded()) {
+                count(operation, Integer.toString(ar.result()));
+            } else if (ar.cause() instanceof Workload.StatusException status) {
+                count(operation, Integer.toString(status.status()));
+            } else {
+                count(operation, "error");
+            }
+        });
+    }
+
+    // Waits for outstanding requests (up to --drain seconds) before reporting
+    private void drain(long deadlineNanos) {
+        if (inFlight == 0 || System.nanoTime() >= deadlineNanos) {
+            if (inFlight > 0) {
+                System.err.println("⚠️ " + inFlight + " requests still outstanding after the drain period");
+            }
+            result.complete(report());
+            return;
+        }
+        vertx.setTimer(100, id -> drain(deadlineNanos));
+    }
+
+    private void record(String operation, long micros) {
+        histograms.computeIfAbsent(operation, k -> new Histogram(MAX_LATENCY_MICROS, 3)).recordValue(micros);
+        all.recordValue(micros);
+    }
+
+    private void count(String operation, String outcome) {
+        outcomes.computeIfAbsent(operation, k -> new TreeMap<>()).merge(outcome, 1L, Long::sum);
+    }
+
+    private JsonObject report() {
+        JsonObject operations = new JsonObject();
+        histograms.forEach((name, histogram) -> operations.put(name, summary(histogram, outcomes.get(name))));
+        // Operations whose requests were all dropped still need a row
+        outcomes.forEach((name, counts) -> {
+            if (!operations.containsKey(name)) {
+                operations.put(name, summary(new Histogram(MAX_LATENCY_MICROS, 3), counts));
+            }
+        });
+
+        Map<String, Long> totals = new TreeMap<>();
+        outcomes.values().forEach(counts -> counts.forEach((outcome, n) -> totals.merge(outcome, n, Long::sum)));
+
+        return new JsonObject()
+                .put("targetRps", options.rps)
+                .put("durationSeconds", options.durationSeconds)
+                .put("warmupSeconds", options.warmupSeconds)
+                .put("connections", options.connections)
+                .put("dropped", dropped)
+                .put("operations", operations)
+                .put("all", summary(all, totals))
+                .put("eventLoopLag", EventLoopLag.between(lagAtStart, lagAtEnd));
+    }
+
+    private JsonObject summary(Histogram histogram, Map<String, Long> counts) {
+        long total = histogram.getTotalCount();
+        long errors = 0;
+        JsonObject statuses = new JsonObject();
+        if (counts != null) {
+            for (Map.Entry<String, Long> entry : counts.entrySet()) {
+                statuses.put(entry.getKey(), entry.getValue());
+                if (!entry.getKey().startsWith("2")) {
+                    errors += entry.getValue();
+                }
+            }
+        }
+        return new JsonObject()
+                .put("count", total)
+                .put("errors", errors)
+                .put("rps", (double) total / options.durationSeconds)
+                .put("p50Ms", millis(histogram, 50))
+                .put("p99Ms", millis(histogram, 99))
+                .put("p999Ms", millis(histogram, 99.9))
+                .put("maxMs", total == 0 ? 0.0 : histogram.getMaxValue() / 1000.0)
+                .put("statuses", statuses);
+    }
+
+    private static double millis(Histogram histogram, double percentile) {
+        return histogram.getTotalCount() == 0 ? 0.0 : histogram.getValueAtPercentile(percentile) / 1000.0;
+    }
+
+    @Override
+    public void stop() {
+        client.close();
+    }
+}
@@ -0,0 +1,380 @@
+package lostandfound.loadtest;
+
+import de.flapdoodle.embed.mongo.commands.ServerAddress;
+import de.flapdoodle.embed.mongo.distribution.Version;
+import de.flapdoodle.embed.mongo.transitions.Mongod;
+import de.flapdoodle.embed.mongo.transitions.RunningMongodProcess;
+import de.flapdoodle.reverse.TransitionWalker;
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+import io.vertx.core.Vertx;
+import io.vertx.core.http.HttpClient;
+import io.vertx.core.http.HttpMethod;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import lostandfound.config.Main;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.net.ServerSocket;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+// Runs the whole app in this JVM against an embedded mongod, FakeRedis and FakeSmtp, drives the
+// Workload mix at a fixed rate and prints p50/p99/p99.9 per operation.
+//
+//   java -jar target/loadtest.jar --rps 300 --duration 60 --mix browse=70,search=30 --out results.json
+//
+// Any app setting can still be passed as -D (e.g. -DBCRYPT_COST=10 -DHTTP_INSTANCES=2).
+// --instances 1,2,4,8 repeats the run once per HTTP_INSTANCES value, each in a fresh JVM, and reports
+// one row per count (the scaling check for deploying one HTTP verticle per core).
+public class LoadTest {
+    private static final String DB_NAME = "lostandfound_loadtest";
+    // Options the sweep sets itself on each child run
+    private static final Set<String> SWEEP_ONLY = Set.of("--instances", "--out", "--mongo-uri");
+
+    static class Options {
+        int rps = 200;
+        int durationSeconds = 60;
+        int warmupSeconds = 15;
+        int drainSeconds = 30;
+        int connections = 64;
+        int maxInFlight = 5000;
+        int users = 50;
+        int items = 2000;
+        int httpPort;
+        Map<String, Integer> mix = Workload.parseMix(Workload.DEFAULT_MIX);
+        String mongoUri;
+        String mongoVersion = "6.0";
+        String out;
+        List<Integer> instances;
+
+        static Options parse(String[] args) {
+            Map<String, String> values = new HashMap<>();
+            for (int i = 0; i < args.length; i++) {
+                if (!args[i].startsWith("--") || i + 1 >= args.length) {
+                    throw new IllegalArgumentException("Expected --name value, got " + args[i]);
+                }
+                values.put(args[i].substring(2), args[++i]);
+            }
+
+            Options options = new Options();
+            options.rps = intValue(values.remove("rps"), options.rps);
+            options.durationSeconds = intValue(values.remove("duration"), options.durationSeconds);
+            options.warmupSeconds = intValue(values.remove("warmup"), options.warmupSeconds);
+            options.drainSeconds = intValue(values.remove("drain"), options.drainSeconds);
+            options.connections = intValue(values.remove("connections"), options.connections);
+            options.maxInFlight = intValue(values.remove("max-in-flight"), options.maxInFlight);
+            options.users = intValue(values.remove("users"), options.users);
+            options.items = intValue(values.remove("items"), options.items);
+            String mix = values.remove("mix");
+            if (mix != null) {
+                options.mix = Workload.parseMix(mix);
+            }
+            options.mongoUri = values.remove("mongo-uri");
+            String mongoVersion = values.remove("mongo-version");
+            if (mongoVersion != null) {
+                options.mongoVersion = mongoVersion;
+            }
+            options.out = values.remove("out");
+            String instances = values.remove("instances");
+            if (instances != null) {
+                options.instances = new ArrayList<>();
+                for (String count : instances.split(",")) {
+                    options.instances.add(Integer.parseInt(count.trim()));
+                }
+            }
+
+            if (!values.isEmpty()) {
+                throw new IllegalArgumentException("Unknown options: " + values.keySet());
+            }
+            if (options.rps < 1 || options.durationSeconds < 1 || options.users < 2 || options.items < 1) {
+                throw new IllegalArgumentException("--rps, --duration and --items must be positive and --users at least 2");
+            }
+            if (options.instances != null && options.instances.stream().anyMatch(count -> count < 1)) {
+                throw new IllegalArgumentException("--instances must be a list of positive counts");
+            }
+            return options;
+        }
+
+        private static int intValue(String value, int defaultValue) {
+            return value == null ? defaultValue : Integer.parseInt(value);
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        Options options;
+        try {
+            options = Options.parse(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.exit(2);
+            return;
+        }
+
+        try {
+            if (options.instances != null) {
+                sweep(options, args);
+            } else {
+                run(options);
+            }
+        } catch (Exception e) {
+            System.err.println("❌ Load test failed: " + e);
+            e.printStackTrace();
+            System.exit(1);
+        }
+        // The app's own Vertx instance has no shutdown hook, so end the JVM explicitly
+        System.exit(0);
+    }
+
+    private static void run(Options options) throws Exception {
+        Vertx vertx = Vertx.vertx();
+        FakeRedis redis = new FakeRedis();
+        FakeSmtp smtp = new FakeSmtp();
+        await(vertx.deployVerticle(redis));
+        await(vertx.deployVerticle(smtp));
+
+        TransitionWalker.ReachedState<RunningMongodProcess> mongod = null;
+        String mongoUri = options.mongoUri;
+        if (mongoUri == null) {
+            mongod = startMongod(options.mongoVersion);
+            mongoUri = mongoUri(mongod);
+        }
+        options.httpPort = freePort();
+
+        // Must happen before any app class reads AppConfig
+        System.setProperty("MONGO_URI", mongoUri);
+        System.setProperty("MONGO_DB", DB_NAME);
+        System.setProperty("REDIS_URL", "redis://127.0.0.1:" + redis.port());
+        System.setProperty("MAIL_HOST", "127.0.0.1");
+        System.setProperty("MAIL_PORT", Integer.toString(smtp.port()));
+        System.setProperty("MAIL_STARTTLS", "DISABLED");
+        System.setProperty("MAIL_USERNAME", "loadtest@localhost");
+        System.setProperty("MAIL_PASSWORD", "unused");
+        System.setProperty("MAIL_SENDER_NAME", "Findly");
+        System.setProperty("HTTP_PORT", Integer.toString(options.httpPort));
+        System.setProperty("ADMIN_EMAIL", "findly.kjc@gmail.com");
+        System.setProperty("ADMIN_PASSWORD", "loadtest-admin");
+        // Every virtual user comes from one IP; pass -DRATE_LIMITS=true to load-test the limiter itself
+        if (System.getProperty("RATE_LIMITS") == null) {
+            System.setProperty("RATE_LIMITS", "false");
+        }
+        // The event-loop lag probes only run with the metrics server; a free port keeps runs from colliding
+        if (System.getProperty("METRICS_PORT") == null) {
+            System.setProperty("METRICS_PORT", Integer.toString(freePort()));
+        }
+        if (System.getProperty("EVENT_LOOP_PROBE_MS") == null) {
+            System.setProperty("EVENT_LOOP_PROBE_MS", "100");
+        }
+
+        System.out.println("🌱 Seeding " + options.users + " users and " + options.items + " items");
+        Fixture fixture = await(Fixture.seed(vertx, mongoUri, DB_NAME, options.users, options.items));
+
+        Main.main(new String[0]);
+        await(waitUntilReady(vertx, options.httpPort, System.currentTimeMillis() + 60_000));
+        System.out.println("🚀 App is up on port " + options.httpPort);
+
+        Promise<JsonObject> result = Promise.promise();
+        await(vertx.deployVerticle(new LoadDriver(options, fixture, result)));
+        JsonObject report = await(result.future());
+        report.put("standIns", new JsonObject()
+                .put("redisCommands", redis.commandCount())
+                .put("smtpSessions", smtp.sessionCount())
+                .put("smtpDelivered", smtp.deliveredCount()));
+
+        print(report);
+        if (options.out != null) {
+            Files.writeString(Path.of(options.out), report.encodePrettily());
+            System.out.println("📄 Wrote " + options.out);
+        }
+
+        if (mongod != null) {
+            mongod.close();
+        }
+    }
+
+    // HTTP_INSTANCES is read once when the app deploys, so every count gets its own JVM. They share one
+    // mongod; each child reseeds the database before it starts.
+    private static void sweep(Options options, String[] args) throws Exception {
+        TransitionWalker.ReachedState<RunningMongodProcess> mongod = null;
+        String mongoUri = options.mongoUri;
+        if (mongoUri == null) {
+            mongod = startMongod(options.mongoVersion);
+            mongoUri = mongoUri(mongod);
+        }
+
+        JsonArray rows = new JsonArray();
+        try {
+            for (int count : options.instances) {
+                Path report = Files.createTempFile("loadtest-instances-" + count + "-", ".json");
+                System.out.println("🔁 Running with HTTP_INSTANCES=" + count);
+                Process child = new ProcessBuilder(childCommand(args, count, mongoUri, report)).inheritIO().start();
+                int exit = child.waitFor();
+                if (exit != 0) {
+                    throw new IllegalStateException("Run with HTTP_INSTANCES=" + count + " exited with " + exit);
+                }
+                rows.add(sweepRow(count, new JsonObject(Files.readString(report))));
+                Files.delete(report);
+            }
+        } finally {
+            if (mongod != null) {
+                mongod.close();
+            }
+        }
+
+        printSweep(rows);
+        if (options.out != null) {
+            Files.writeString(Path.of(options.out), rows.encodePrettily());
+            System.out.println("📄 Wrote " + options.out);
+        }
+    }
+
+    // Same JVM flags and options as this run, with the count and the shared mongod filled in
+    private static List<String> childCommand(String[] args, int instances, String mongoUri, Path report) {
+        List<String> command = new ArrayList<>();
+        command.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+        for (String arg : ManagementFactory.getRuntimeMXBean().getInputArguments()) {
+            if (!arg.startsWith("-DHTTP_INSTANCES=")) {
+                command.add(arg);
+            }
+        }
+        command.add("-DHTTP_INSTANCES=" + instances);
+        command.add("-cp");
+        command.add(System.getProperty("java.class.path"));
+        command.add(LoadTest.class.getName());
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            if (!SWEEP_ONLY.contains(args[i])) {
+                command.add(args[i]);
+                command.add(args[i + 1]);
+            }
+        }
+        command.addAll(List.of("--mongo-uri", mongoUri, "--out", report.toString()));
+        return command;
+    }
+
+    private static JsonObject sweepRow(int instances, JsonObject report) {
+        JsonObject all = report.getJsonObject("all");
+        return new JsonObject()
+                .put("instances", instances)
+                .put("targetRps", report.getInteger("targetRps"))
+                .put("rps", all.getDouble("rps"))
+                .put("p50Ms", all.getDouble("p50Ms"))
+                .put("p99Ms", all.getDouble("p99Ms"))
+                .put("p999Ms", all.getDouble("p999Ms"))
+                .put("errors", all.getLong("errors"))
+                .put("dropped", report.getLong("dropped"))
+                .put("eventLoopLagP99Ms", lagP99(report));
+    }
+
+    private static Double lagP99(JsonObject report) {
+        JsonObject lag = report.getJsonObject("eventLoopLag");
+        return lag == null ? null : lag.getDouble("p99Ms");
+    }
+
+    private static void printSweep(JsonArray rows) {
+        System.out.printf("%n%-10s %9s %9s %9s %9s %9s %7s %8s %12s%n",
+                "instances", "target", "req/s", "p50 ms", "p99 ms", "p99.9 ms", "errors", "dropped", "lag p99 ms");
+        for (int i = 0; i < rows.size(); i++) {
+            JsonObject row = rows.getJsonObject(i);
+            System.out.printf("%-10d %9d %9.1f %9.2f %9.2f %9.2f %7d %8d %12s%n",
+                    row.getInteger("instances"), row.getInteger("targetRps"), row.getDouble("rps"),
+                    row.getDouble("p50Ms"), row.getDouble("p99Ms"), row.getDouble("p999Ms"),
+                    row.getLong("errors"), row.getLong("dropped"), lagMillis(row.getDouble("eventLoopLagP99Ms")));
+        }
+    }
+
+    private static Future<Void> waitUntilReady(Vertx vertx, int port, long deadline) {
+        HttpClient client = vertx.createHttpClient();
+        Promise<Void> ready = Promise.promise();
+        poll(vertx, client, port, deadline, ready);
+        return ready.future().eventually(() -> client.close());
+    }
+
+    private static void poll(Vertx vertx, HttpClient client, int port, long deadline, Promise<Void> ready) {
+        client.request(HttpMethod.GET, port, "127.0.0.1", "/api/items?limit=1")
+                .compose(request -> request.send())
+                .compose(response -> response.body().map(body -> response.statusCode()))
+                .onComplete(ar -> {
+                    if (ar.succeeded() && ar.result() == 200) {
+                        ready.complete();
+                    } else if (System.currentTimeMillis() > deadline) {
+                        ready.fail("App did not become ready within 60s");
+                    } else {
+                        vertx.setTimer(250, id -> poll(vertx, client, port, deadline, ready));
+                    }
+                });
+    }
+
+    private static void print(JsonObject report) {
+        System.out.printf("%nTarget %d req/s for %ds (after %ds warmup), %d dropped at the in-flight cap%n%n",
+                report.getInteger("targetRps"), report.getInteger("durationSeconds"),
+                report.getInteger("warmupSeconds"), report.getLong("dropped"));
+        System.out.printf("%-10s %9s %7s %9s %9s %9s %9s %9s%n",
+                "operation", "requests", "errors", "req/s", "p50 ms", "p99 ms", "p99.9 ms", "max ms");
+        JsonObject operations = report.getJsonObject("operations");
+        for (String name : operations.fieldNames()) {
+            printRow(name, operations.getJsonObject(name));
+        }
+        printRow("all", report.getJsonObject("all"));
+
+        // Side by side, a login storm shows whether BCrypt is kept off the event loops
+        JsonObject lag = report.getJsonObject("eventLoopLag");
+        System.out.println();
+        if (lag == null) {
+            System.out.println("event-loop lag: not measured (metrics server disabled)");
+        } else {
+            JsonObject browse = operations.getJsonObject("browse");
+            System.out.printf("event-loop lag over %d probes: p50 <= %s ms, p99 <= %s ms, max <= %s ms%s%n",
+                    lag.getLong("samples"), lagMillis(lag.getDouble("p50Ms")), lagMillis(lag.getDouble("p99Ms")),
+                    lagMillis(lag.getDouble("maxMs")),
+                    browse == null ? "" : String.format(" (browse p99 %.2f ms)", browse.getDouble("p99Ms")));
+        }
+
+        System.out.println();
+        for (String name : operations.fieldNames()) {
+            System.out.println(name + " statuses: " + operations.getJsonObject(name).getJsonObject("statuses").encode());
+        }
+        System.out.println("stand-ins: " + report.getJsonObject("standIns").encode());
+    }
+
+    private static void printRow(String name, JsonObject row) {
+        System.out.printf("%-10s %9d %7d %9.1f %9.2f %9.2f %9.2f %9.2f%n",
+                name, row.getLong("count"), row.getLong("errors"), row.getDouble("rps"),
+                row.getDouble("p50Ms"), row.getDouble("p99Ms"), row.getDouble("p999Ms"), row.getDouble("maxMs"));
+    }
+
+    private static TransitionWalker.ReachedState<RunningMongodProcess> startMongod(String version) {
+        System.out.println("🍃 Starting embedded mongod " + version + " (downloaded on first run)");
+        return Mongod.instance().start(mongoVersion(version));
+    }
+
+    private static String mongoUri(TransitionWalker.ReachedState<RunningMongodProcess> mongod) {
+        ServerAddress address = mongod.current().getServerAddress();
+        return "mongodb://" + address.getHost() + ":" + address.getPort();
+    }
+
+    // Lag percentiles are bucket bounds; null means past the largest one
+    private static String lagMillis(Double millis) {
+        return millis == null ? "-" : String.format("%.1f", millis);
+    }
+
+    private static Version.Main mongoVersion(String version) {
+        return Version.Main.valueOf("V" + version.replace('.', '_'));
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    private static <T> T await(Future<T> future) throws Exception {
+        return future.toCompletionStage().toCompletableFuture().get(10, TimeUnit.MINUTES);
+    }
+}
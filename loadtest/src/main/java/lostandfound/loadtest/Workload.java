@@ -0,0 +1,155 @@
+package lostandfound.loadtest;
+
+import io.vertx.core.Future;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.http.HttpClient;
+import io.vertx.core.http.HttpClientResponse;
+import io.vertx.core.http.HttpMethod;
+import io.vertx.core.http.RequestOptions;
+import io.vertx.core.json.JsonObject;
+
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+
+// The request mix: each operation is one API call shaped like what the Angular client sends
+public class Workload {
+    public static final String DEFAULT_MIX = "browse=55,search=20,post=8,contact=7,claim=5,login=5";
+
+    private final HttpClient client;
+    private final Fixture fixture;
+    private final Map<String, Integer> mix;
+    private final int totalWeight;
+
+    public Workload(HttpClient client, Fixture fixture, Map<String, Integer> mix) {
+        this.client = client;
+        this.fixture = fixture;
+        this.mix = mix;
+        this.totalWeight = mix.values().stream().mapToInt(Integer::intValue).sum();
+    }
+
+    // "browse=60,search=40" -> ordered name/weight pairs
+    public static Map<String, Integer> parseMix(String spec) {
+        Map<String, Integer> mix = new LinkedHashMap<>();
+        for (String part : spec.split(",")) {
+            String[] pair = part.trim().split("=");
+            if (pair.length != 2) {
+                throw new IllegalArgumentException("Bad mix entry: " + part);
+            }
+            String name = pair[0].trim();
+            if (!DEFAULT_MIX.contains(name + "=")) {
+                throw new IllegalArgumentException("Unknown operation: " + name);
+            }
+            int weight = Integer.parseInt(pair[1].trim());
+            if (weight > 0) {
+                mix.put(name, weight);
+            }
+        }
+        if (mix.isEmpty()) {
+            throw new IllegalArgumentException("Mix has no operations");
+        }
+        return mix;
+    }
+
+    public String pick(Random random) {
+        int roll = random.nextInt(totalWeight);
+        for (Map.Entry<String, Integer> entry : mix.entrySet()) {
+            roll -= entry.getValue();
+            if (roll < 0) {
+                return entry.getKey();
+            }
+        }
+        throw new IllegalStateException("unreachable");
+    }
+
+    // Completes with the status code once the whole response body has been read
+    public Future<Integer> run(String operation, Random random) {
+        switch (operation) {
+            case "browse":
+                return send(HttpMethod.GET, browseUri(random), null, null);
+            case "search":
+                return send(HttpMethod.GET, "/api/search?limit=20&q="
+                        + URLEncoder.encode(Fixture.WORDS[random.nextInt(Fixture.WORDS.length)], StandardCharsets.UTF_8),
+                        null, null);
+            case "post":
+                return send(HttpMethod.POST, "/api/items", anyToken(random), fixture.itemBody(random));
+            case "contact": {
+                int item = random.nextInt(fixture.itemIds.size());
+                int sender = (fixture.posters.get(item) + 1 + random.nextInt(fixture.users.size() - 1))
+                        % fixture.users.size();
+                return send(HttpMethod.POST, "/api/items/" + fixture.itemIds.get(item) + "/contact",
+                        fixture.tokens.get(sender), new JsonObject().put("message", "Load test: I think this is mine"));
+            }
+            case "claim": {
+                int item = random.nextInt(fixture.itemIds.size());
+                return send(HttpMethod.PATCH, "/api/items/" + fixture.itemIds.get(item) + "/claim",
+                        fixture.tokens.get(fixture.claimers.get(item)), null);
+            }
+            case "login":
+                return login(fixture.users.get(random.nextInt(fixture.users.size()))).map(token -> 200);
+            default:
+                return Future.failedFuture("Unknown operation " + operation);
+        }
+    }
+
+    public Future<String> login(String email) {
+        JsonObject body = new JsonObject().put("email", email).put("password", Fixture.PASSWORD);
+        return request(HttpMethod.POST, "/api/auth/login", null, body).compose(response -> {
+            if (response.statusCode() != 200) {
+                return Future.failedFuture(new StatusException(response.statusCode()));
+            }
+            return response.body().map(buffer -> buffer.toJsonObject().getString("token"));
+        });
+    }
+
+    private String browseUri(Random random) {
+        switch (random.nextInt(4)) {
+            case 0:
+                return "/api/items?limit=20&status=lost";
+            case 1:
+                return "/api/items?limit=20&status=found";
+            case 2:
+                return "/api/items?limit=20&location="
+                        + URLEncoder.encode(Fixture.LOCATIONS[random.nextInt(Fixture.LOCATIONS.length)], StandardCharsets.UTF_8);
+            default:
+                return "/api/items?limit=20";
+        }
+    }
+
+    private String anyToken(Random random) {
+        return fixture.tokens.get(random.nextInt(fixture.tokens.size()));
+    }
+
+    private Future<Integer> send(HttpMethod method, String uri, String token, JsonObject body) {
+        return request(method, uri, token, body)
+                .compose(response -> response.body().map(buffer -> response.statusCode()));
+    }
+
+    private Future<HttpClientResponse> request(HttpMethod method, String uri, String token, JsonObject body) {
+        RequestOptions options = new RequestOptions().setMethod(method).setURI(uri);
+        if (token != null) {
+            options.putHeader("Authorization", "Bearer " + token);
+        }
+        if (body != null) {
+            options.putHeader("Content-Type", "application/json");
+        }
+        Buffer payload = body == null ? null : body.toBuffer();
+        return client.request(options).compose(request -> payload == null ? request.send() : request.send(payload));
+    }
+
+    // Non-2xx answers from login carry their status so the driver can count them per code
+    public static class StatusException extends RuntimeException {
+        private final int status;
+
+        public StatusException(int status) {
+            super("HTTP " + status, null, false, false);
+            this.status = status;
+        }
+
+        public int status() {
+            return status;
+        }
+    }
+}
@@ -1,27 +1,34 @@
 package lostandfound.config;
 
-import io.github.cdimascio.dotenv.Dotenv;
+import com.mongodb.MongoClientSettings;
 import io.vertx.core.Vertx;
 import io.vertx.core.json.JsonObject;
 import io.vertx.ext.mongo.MongoClient;
+import io.vertx.ext.mongo.impl.config.MongoClientOptionsParser;
+import lostandfound.config.utils.MongoMetrics;
 
 public class DatabaseConfig {
     private static MongoClient mongoClient;
 
-    public static MongoClient getMongoClient(Vertx vertx) {
+    // Synchronized so that verticle instances starting on different event loops share one client
+    public static synchronized MongoClient getMongoClient(Vertx vertx) {
         if (mongoClient == null) {
-            // Load .env file
-            Dotenv dotenv = Dotenv.load();
-
-            String connectionString = dotenv.get("MONGO_URI");
-            String dbName = dotenv.get("MONGO_DB");
+            String connectionString = AppConfig.get("MONGO_URI");
+            String dbName = AppConfig.get("MONGO_DB");
 
             JsonObject config = new JsonObject()
                     .put("connection_string", connectionString)
                     .put("db_name", dbName);
 
-            mongoClient = MongoClient.createShared(vertx, config);
+            // Same settings Vert.x would build from the config (codecs included), plus the metrics listeners
+            MongoMetrics metrics = new MongoMetrics();
+            MongoClientSettings settings = MongoClientSettings.builder(new MongoClientOptionsParser(vertx, config).settings())
+                    .addCommandListener(metrics)
+                    .applyToConnectionPoolSettings(pool -> pool.addConnectionPoolListener(metrics))
+                    .build();
+
+            mongoClient = MongoClient.createWithMongoSettings(vertx, config, MongoClient.DEFAULT_POOL_NAME, settings);
         }
         return mongoClient;
     }
-}
\ No newline at end of file
+}
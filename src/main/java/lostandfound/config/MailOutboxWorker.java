@@ -0,0 +1,193 @@
+package lostandfound.config;
+
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import io.vertx.ext.mail.SMTPException;
+import io.vertx.ext.mongo.FindOptions;
+import io.vertx.ext.mongo.MongoClient;
+import lostandfound.config.utils.MailUtil;
+
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+// Delivers the mail_outbox in batches. Each message is claimed with a lease (status "sending" and
+// nextAttemptAt in the future) so a crash mid-send only delays it. Failures retry with exponential
+// backoff; permanent SMTP rejections and messages out of attempts are kept as dead letters.
+// Rate limits are per process, which is fine while one MaintenanceVerticle does all the sending.
+public class MailOutboxWorker {
+    private static final int BATCH_SIZE = AppConfig.getInt("MAIL_BATCH_SIZE", 20);
+    private static final long POLL_INTERVAL_MS = AppConfig.getLong("MAIL_POLL_MS", 5000);
+    private static final int MAX_ATTEMPTS = AppConfig.getInt("MAIL_MAX_ATTEMPTS", 6);
+    private static final int GLOBAL_PER_MINUTE = AppConfig.getInt("MAIL_GLOBAL_PER_MINUTE", 60);
+    private static final int RECIPIENT_PER_HOUR = AppConfig.getInt("MAIL_RECIPIENT_PER_HOUR", 5);
+
+    private static final long LEASE_MS = 2 * 60 * 1000;
+    private static final long BASE_BACKOFF_MS = 30 * 1000;
+    private static final long MAX_BACKOFF_MS = 60 * 60 * 1000;
+    private static final long MINUTE_MS = 60 * 1000;
+    private static final long HOUR_MS = 60 * MINUTE_MS;
+
+    private final Vertx vertx;
+    private final MongoClient mongoClient;
+
+    // Send timestamps for the rate limits; only touched on the maintenance event loop
+    private final Deque<Long> globalWindow = new ArrayDeque<>();
+    private final Map<String, Deque<Long>> recipientWindows = new HashMap<>();
+
+    private boolean draining;
+    private boolean wakeRequested;
+
+    public MailOutboxWorker(Vertx vertx, MongoClient mongoClient) {
+        this.vertx = vertx;
+        this.mongoClient = mongoClient;
+    }
+
+    public void start() {
+        vertx.eventBus().localConsumer(MailUtil.WAKE_ADDRESS, message -> drain());
+        // The poll picks up retries whose backoff has passed and anything enqueued while we were down
+        vertx.setPeriodic(POLL_INTERVAL_MS, id -> drain());
+        drain();
+    }
+
+    private void drain() {
+        if (draining) {
+            wakeRequested = true;
+            return;
+        }
+        draining = true;
+        wakeRequested = false;
+
+        sendBatch().onComplete(res -> {
+            draining = false;
+            if (res.failed()) {
+                System.err.println("❌ Mail outbox batch failed: " + res.cause().getMessage());
+            } else if (res.result() || wakeRequested) {
+                drain();
+            }
+        });
+    }
+
+    // Completes with true when there may be more due mail right now
+    private Future<Boolean> sendBatch() {
+        long now = System.currentTimeMillis();
+        JsonObject due = new JsonObject()
+                .put("status", new JsonObject().put("$in", new JsonArray().add(MailUtil.PENDING).add(MailUtil.SENDING)))
+                .put("nextAttemptAt", new JsonObject().put("$lte", now));
+        FindOptions options = new FindOptions()
+                .setSort(new JsonObject().put("nextAttemptAt", 1))
+                .setLimit(BATCH_SIZE);
+
+        return mongoClient.findWithOptions(MailUtil.OUTBOX, due, options).compose(messages -> {
+            pruneWindows(now);
+
+            List<Future<Void>> sends = new ArrayList<>();
+            boolean throttled = false;
+            for (JsonObject message : messages) {
+                if (globalWindow.size() >= GLOBAL_PER_MINUTE) {
+                    throttled = true; // the rest stay due and go out on a later tick
+                    break;
+                }
+
+                String to = message.getString("to");
+                Deque<Long> recipientWindow = recipientWindows.computeIfAbsent(to, k -> new ArrayDeque<>());
+                if (recipientWindow.size() >= RECIPIENT_PER_HOUR) {
+                    sends.add(defer(message, recipientWindow.peekFirst() + HOUR_MS));
+                    continue;
+                }
+
+                globalWindow.addLast(now);
+                recipientWindow.addLast(now);
+                sends.add(claimAndSend(message));
+            }
+
+            boolean more = !throttled && messages.size() == BATCH_SIZE;
+            return Future.join(sends).map(more).otherwise(more);
+        });
+    }
+
+    private Future<Void> claimAndSend(JsonObject message) {
+        JsonObject claim = new JsonObject()
+                .put("_id", message.getValue("_id"))
+                .put("status", message.getString("status"))
+                .put("nextAttemptAt", message.getLong("nextAttemptAt"));
+        JsonObject lease = new JsonObject().put("$set", new JsonObject()
+                .put("status", MailUtil.SENDING)
+                .put("nextAttemptAt", System.currentTimeMillis() + LEASE_MS));
+
+        return mongoClient.updateCollection(MailUtil.OUTBOX, claim, lease).compose(result -> {
+            if (result.getDocModified() == 0) {
+                return Future.succeededFuture(); // someone else claimed it
+            }
+            return MailUtil.deliver(message).transform(sent -> sent.succeeded()
+                    ? markSent(message)
+                    : markFailed(message, sent.cause()));
+        });
+    }
+
+    private Future<Void> markSent(JsonObject message) {
+        JsonObject update = new JsonObject()
+                .put("$set", new JsonObject()
+                        .put("status", MailUtil.SENT)
+                        // BSON date so the TTL index on sentAt can purge delivered mail
+                        .put("sentAt", new JsonObject().put("$date", Instant.now().toString())))
+                .put("$inc", new JsonObject().put("attempts", 1));
+        return update(message, update);
+    }
+
+    private Future<Void> markFailed(JsonObject message, Throwable err) {
+        int attempts = message.getInteger("attempts", 0) + 1;
+        boolean permanent = err instanceof SMTPException smtp && smtp.isPermanent();
+
+        JsonObject set = new JsonObject()
+                .put("attempts", attempts)
+                .put("lastError", String.valueOf(err.getMessage()));
+        if (permanent || attempts >= MAX_ATTEMPTS) {
+            set.put("status", MailUtil.DEAD).put("failedAt", System.currentTimeMillis());
+            System.err.println("❌ Giving up on " + message.getString("kind") + " email to "
+                    + message.getString("to") + " after " + attempts + " attempt(s): " + err.getMessage());
+        } else {
+            set.put("status", MailUtil.PENDING).put("nextAttemptAt", System.currentTimeMillis() + backoff(attempts));
+        }
+        return update(message, new JsonObject().put("$set", set));
+    }
+
+    // Over the per-recipient limit: push it back without spending an attempt
+    private Future<Void> defer(JsonObject message, long until) {
+        JsonObject update = new JsonObject().put("$set", new JsonObject()
+                .put("status", MailUtil.PENDING)
+                .put("nextAttemptAt", until));
+        return update(message, update);
+    }
+
+    private Future<Void> update(JsonObject message, JsonObject update) {
+        return mongoClient.updateCollection(MailUtil.OUTBOX, new JsonObject().put("_id", message.getValue("_id")), update)
+                .onFailure(err -> System.err.println("Failed to update outbox message " + message.getValue("_id") + ": " + err.getMessage()))
+                .mapEmpty();
+    }
+
+    // 30s, 1m, 2m, 4m ... capped at an hour, with +/-20% jitter so retries don't bunch up
+    private static long backoff(int attempts) {
+        long delay = Math.min(MAX_BACKOFF_MS, BASE_BACKOFF_MS << Math.min(attempts - 1, 20));
+        return (long) (delay * ThreadLocalRandom.current().nextDouble(0.8, 1.2));
+    }
+
+    private void pruneWindows(long now) {
+        while (!globalWindow.isEmpty() && globalWindow.peekFirst() <= now - MINUTE_MS) {
+            globalWindow.removeFirst();
+        }
+        recipientWindows.values().removeIf(window -> {
+            while (!window.isEmpty() && window.peekFirst() <= now - HOUR_MS) {
+                window.removeFirst();
+            }
+            return window.isEmpty();
+        });
+    }
+}
@@ -1,119 +1,70 @@
 package lostandfound.config;
 
-import io.github.cdimascio.dotenv.Dotenv;
-import io.vertx.core.json.JsonArray;
-import io.vertx.core.json.JsonObject;
+import io.vertx.core.DeploymentOptions;
+import io.vertx.core.Promise;
 import lostandfound.config.handlers.AdminHandler;
 import lostandfound.config.handlers.AuthHandler;
 import lostandfound.config.handlers.ItemHandler;
+import lostandfound.config.handlers.ItemStreamHandler;
+import lostandfound.config.handlers.UploadsHandler;
+import lostandfound.config.middleware.RateLimiter;
+import lostandfound.config.middleware.RequestMetrics;
 import io.vertx.core.AbstractVerticle;
 import io.vertx.core.Vertx;
 import io.vertx.ext.mongo.MongoClient;
 import io.vertx.ext.web.Router;
-import io.vertx.ext.web.handler.BodyHandler;
 import io.vertx.ext.web.handler.CorsHandler;
-import io.vertx.ext.web.handler.StaticHandler;
-import lostandfound.config.utils.PasswordUtil;
+import lostandfound.config.utils.MailUtil;
 import lostandfound.config.utils.RedisUtil;
-import io.vertx.redis.client.RedisAPI;
+import lostandfound.config.utils.StallMonitor;
+import lostandfound.config.utils.TokenBlacklist;
 import io.vertx.core.http.HttpMethod; // ⬅️ Make sure this is imported
+import io.vertx.core.http.HttpServerOptions;
+import io.vertx.core.http.HttpVersion;
+import io.vertx.core.net.PemKeyCertOptions;
+import lostandfound.config.middleware.CompressionThreshold;
 
 
 
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 
 public class Main extends AbstractVerticle {
-    private static final Dotenv dotenv = Dotenv.load();
     public static void main(String[] args) {
         Vertx vertx = Vertx.vertx();
-        vertx.deployVerticle(new Main());
-    }
-    private void insertAdminIfNotExists(MongoClient mongoClient) {
-        String adminEmail = dotenv.get("ADMIN_EMAIL");
-        String adminPassword = dotenv.get("ADMIN_PASSWORD");
+        initSharedClients(vertx);
 
-        if (adminEmail == null || adminPassword == null) {
-            System.err.println(" ADMIN_EMAIL or ADMIN_PASSWORD not set in .env");
-            return;
-        }
+        // One HTTP verticle per core; they all listen on the same port and Vert.x spreads connections
+        int instances = AppConfig.getInt("HTTP_INSTANCES", Runtime.getRuntime().availableProcessors());
 
-        mongoClient.findOne("users", new JsonObject().put("email", adminEmail), null, res -> {
-            if (res.succeeded() && res.result() == null) {
-                String hashedPassword = PasswordUtil.hashPassword(adminPassword);
-                JsonObject adminUser = new JsonObject()
-                        .put("name", "Admin")
-                        .put("email", adminEmail)
-                        .put("password", hashedPassword)
-                        .put("role", "admin")
-                        .put("isVerified", true);
-
-                mongoClient.insert("users", adminUser, insert -> {
-                    if (insert.succeeded()) {
-                        System.out.println("Admin user inserted");
-                    } else {
-                        System.err.println("Failed to insert admin: " + insert.cause().getMessage());
-                    }
+        vertx.deployVerticle(new MaintenanceVerticle())
+                .compose(id -> vertx.deployVerticle(Main::new, new DeploymentOptions().setInstances(instances)))
+                .onSuccess(id -> System.out.println("Deployed " + instances + " HTTP verticle instance(s)"))
+                .onFailure(err -> {
+                    System.err.println("Deployment failed: " + err.getMessage());
+                    vertx.close();
                 });
-            } else {
-                System.out.println(" ");
-            }
-        });
-
-    }
-    private void startItemCleanupTask(MongoClient mongoClient) {
-        long intervalMillis = 24 * 60 * 60 * 1000; // 1 day
-
-        vertx.setPeriodic(intervalMillis, id -> {
-            long now = System.currentTimeMillis();
-
-            // Claimed: delete after 7 days
-            long claimedCutoff = now - (7L * 24 * 60 * 60 * 1000);
-            JsonObject claimedQuery = new JsonObject()
-                    .put("isClaimed", true)
-                    .put("claimedAt", new JsonObject().put("$lte", claimedCutoff));
-
-            mongoClient.removeDocuments("items", claimedQuery, res -> {
-                if (res.succeeded()) {
-                    System.out.println("🧹 Deleted claimed items older than 7 days");
-                } else {
-                    System.err.println("❌ Failed to delete old claimed items");
-                }
-            });
-
-            // Unclaimed: delete after 30 days
-            long unclaimedCutoff = now - (30L * 24 * 60 * 60 * 1000);
-            JsonObject unclaimedQuery = new JsonObject()
-                    .put("$or", new JsonArray()
-                            .add(new JsonObject().put("isClaimed", false))
-                            .add(new JsonObject().put("isClaimed", new JsonObject().put("$exists", false)))
-                    )
-                    .put("createdAt", new JsonObject().put("$lte", unclaimedCutoff));
-
-            mongoClient.removeDocuments("items", unclaimedQuery, res -> {
-                if (res.succeeded()) {
-                    System.out.println("🧹 Deleted unclaimed items older than 30 days");
-                } else {
-                    System.err.println("❌ Failed to delete old unclaimed items");
-                }
-            });
-        });
     }
 
+    // Clients shared by every verticle instance; created once on the main thread before deployment
+    public static void initSharedClients(Vertx vertx) {
+        DatabaseConfig.getMongoClient(vertx);
+        RedisUtil.init(vertx);
+        MailUtil.init(vertx);
+        TokenBlacklist.init(vertx);
+        RateLimiter.init(vertx);
+    }
 
     @Override
-    public void start() {
+    public void start(Promise<Void> startPromise) {
 
         MongoClient mongoClient = DatabaseConfig.getMongoClient(vertx);
         Router router = Router.router(vertx);
-        insertAdminIfNotExists(mongoClient);
-        startItemCleanupTask(mongoClient);
 
-
-        // ✅ INIT REDIS
+        // ✅ INIT REDIS (no-op when main() already created the shared clients)
         RedisUtil.init(vertx);
-
-        RedisAPI redis = RedisUtil.getRedis(); // anywhere
+        MailUtil.init(vertx);
 
         // Enable CORS (so Angular frontend can access APIs)
         Set<String> allowedHeaders = new HashSet<>();
@@ -123,23 +74,30 @@ public class Main extends AbstractVerticle {
         allowedHeaders.add("Content-Type");
         allowedHeaders.add("accept");
         allowedHeaders.add("Authorization");
+        allowedHeaders.add("If-None-Match");
 
         CorsHandler corsHandler = CorsHandler.create()
                 .addOrigin("*")  // Allow all origins
                 .allowedHeaders(allowedHeaders)
                 .allowCredentials(true)// Optional: only if you want to allow cookies/auth headers
-         .allowedMethod(HttpMethod.PATCH);
-
+         .allowedMethod(HttpMethod.PATCH)
+                .exposedHeader("X-Next-Cursor") // keyset cursor for paginated item lists
+                .exposedHeader("ETag");
+
+        // This instance's event loop
+        StallMonitor.watchCurrentLoop();
+        MetricsServer.probeCurrentLoop(vertx);
+        router.route().handler(StallMonitor::track);
+        router.route().handler(RequestMetrics::handle);
         router.route().handler(corsHandler);
 
+        HttpServerOptions serverOptions = serverOptions();
+        if (serverOptions.isCompressionSupported()) {
+            router.route().handler(CompressionThreshold::handle);
+        }
 
-        // Enable multipart form data (for file uploads)
-        router.route().handler(BodyHandler.create()
-                .setUploadsDirectory("uploads")
-                .setDeleteUploadedFilesOnEnd(false));
 
-        // Serve static image files
-        router.route("/uploads/*").handler(StaticHandler.create("uploads"));
+        // Request bodies are handled per route (see RequestBodies), with a size limit on each
 
         // Register all routes
         AuthHandler authHandler = new AuthHandler(mongoClient, vertx);
@@ -147,18 +105,44 @@ public class Main extends AbstractVerticle {
         AdminHandler adminHandler = new AdminHandler(mongoClient, vertx);
 
         authHandler.setupRoutes(router);
+        new ItemStreamHandler(vertx).setupRoutes(router);
         itemHandler.setupRoutes(router);
         adminHandler.setupRoutes(router);
+        new UploadsHandler(vertx).setupRoutes(router);
 
         // Start server
-        vertx.createHttpServer()
+        vertx.createHttpServer(serverOptions)
                 .requestHandler(router)
-                .listen(8888,"0.0.0.0" ,res -> {
+                .listen(AppConfig.getInt("HTTP_PORT", 8888),"0.0.0.0" ,res -> {
                     if (res.succeeded()) {
-                        System.out.println("Server is running ");
+                        System.out.println("Server is running " + (serverOptions.isSsl() ? "(TLS, h2 + http/1.1)" : ""));
+                        startPromise.complete();
                     } else {
                         System.err.println("Server failed to start: " + res.cause());
+                        startPromise.fail(res.cause());
                     }
                 });
     }
+
+    // gzip/deflate when the client asks for it (see CompressionThreshold), HTTP/2 over cleartext (h2c),
+    // and TLS with ALPN for h2 when TLS_CERT_PATH and TLS_KEY_PATH point at PEM files.
+    // With compression on, Netty's compressor sits in every pipeline and Vert.x stops using sendfile,
+    // so large /uploads files are copied through the heap; JSON gets far smaller in exchange.
+    // Deployments where a proxy or CDN already compresses can set HTTP_COMPRESSION=false to get it back.
+    public static HttpServerOptions serverOptions() {
+        HttpServerOptions options = new HttpServerOptions()
+                .setCompressionSupported(AppConfig.getBoolean("HTTP_COMPRESSION", true))
+                .setCompressionLevel(AppConfig.getInt("HTTP_COMPRESSION_LEVEL", 6))
+                .setHttp2ClearTextEnabled(AppConfig.getBoolean("HTTP2_CLEARTEXT", true));
+
+        String certPath = AppConfig.get("TLS_CERT_PATH");
+        String keyPath = AppConfig.get("TLS_KEY_PATH");
+        if (certPath != null && !certPath.isBlank() && keyPath != null && !keyPath.isBlank()) {
+            options.setSsl(true)
+                    .setUseAlpn(true)
+                    .setAlpnVersions(List.of(HttpVersion.HTTP_2, HttpVersion.HTTP_1_1))
+                    .setKeyCertOptions(new PemKeyCertOptions().setCertPath(certPath).setKeyPath(keyPath));
+        }
+        return options;
+    }
 }
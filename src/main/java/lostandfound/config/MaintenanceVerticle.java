@@ -0,0 +1,120 @@
+package lostandfound.config;
+
+import io.vertx.core.AbstractVerticle;
+import io.vertx.core.Promise;
+import io.vertx.core.json.JsonObject;
+import io.vertx.ext.mongo.MongoClient;
+import lostandfound.config.utils.CategoryCache;
+import lostandfound.config.utils.ImageRenditions;
+import lostandfound.config.utils.ImageStore;
+import lostandfound.config.utils.PasswordUtil;
+import lostandfound.config.utils.SearchIndex;
+import lostandfound.config.utils.StallMonitor;
+import lostandfound.config.utils.StatsCounters;
+
+// Runs exactly once per process: startup data fixes and periodic jobs.
+// Keeping them out of Main means N HTTP instances don't run the same job N times.
+public class MaintenanceVerticle extends AbstractVerticle {
+
+    @Override
+    public void start(Promise<Void> startPromise) {
+        MongoClient mongoClient = DatabaseConfig.getMongoClient(vertx);
+
+        // Indexes first; in SCHEMA_CHECK mode a failed plan check stops the deployment here
+        new SchemaBootstrap(mongoClient).run()
+                .onSuccess(v -> {
+                    startTasks(mongoClient);
+                    startPromise.complete();
+                })
+                .onFailure(startPromise::fail);
+    }
+
+    private void startTasks(MongoClient mongoClient) {
+        new MetricsServer(vertx).start();
+        if (AppConfig.getBoolean("STALL_MONITOR", true)) {
+            StallMonitor.start();
+        }
+        insertAdminIfNotExists(mongoClient);
+        new RetentionEngine(vertx, mongoClient).start();
+        CategoryCache.get(mongoClient); // warm up so the first page load is served from memory
+        startStatsReconciliation(mongoClient);
+        new MailOutboxWorker(vertx, mongoClient).start();
+        startTempFileSweep();
+
+        // Search falls back to Mongo until the index has loaded; load after the migration so it sees photoUrl
+        new PhotoMigration(vertx, mongoClient).run()
+                .onFailure(err -> System.err.println("❌ Photo migration failed: " + err.getMessage()))
+                .transform(migrated -> SearchIndex.load(mongoClient))
+                .onFailure(err -> System.err.println("❌ Failed to build search index: " + err.getMessage()))
+                .transform(indexed -> ImageRenditions.backfill(vertx, mongoClient))
+                .onSuccess(rendered -> {
+                    if (rendered > 0) {
+                        System.out.println("🖼️ Made thumbnails for " + rendered + " existing images");
+                    }
+                })
+                .onFailure(err -> System.err.println("❌ Thumbnail backfill failed: " + err.getMessage()));
+    }
+
+    // Uploads abandoned mid-request or cut off by a crash leave files in uploads/.tmp
+    private void startTempFileSweep() {
+        long hour = 60 * 60 * 1000;
+        Runnable sweep = () -> ImageStore.sweepTempFiles(vertx, hour)
+                .onSuccess(deleted -> {
+                    if (deleted > 0) {
+                        System.out.println("🧹 Deleted " + deleted + " stale upload temp files");
+                    }
+                })
+                .onFailure(err -> System.err.println("❌ Failed to sweep upload temp files: " + err.getMessage()));
+
+        sweep.run();
+        vertx.setPeriodic(hour, id -> sweep.run());
+    }
+
+    // Counters drift if a write lands between a Mongo change and its HINCRBY (or Redis was down); recount periodically
+    private void startStatsReconciliation(MongoClient mongoClient) {
+        long intervalMillis = AppConfig.getLong("STATS_RECONCILE_MINUTES", 15) * 60 * 1000;
+
+        reconcileStats(mongoClient);
+        vertx.setPeriodic(intervalMillis, id -> reconcileStats(mongoClient));
+    }
+
+    private void reconcileStats(MongoClient mongoClient) {
+        StatsCounters.reconcile(mongoClient)
+                .onFailure(err -> System.err.println("❌ Failed to reconcile stats: " + err.getMessage()));
+    }
+
+    private void insertAdminIfNotExists(MongoClient mongoClient) {
+        String adminEmail = AppConfig.get("ADMIN_EMAIL");
+        String adminPassword = AppConfig.get("ADMIN_PASSWORD");
+
+        if (adminEmail == null || adminPassword == null) {
+            System.err.println(" ADMIN_EMAIL or ADMIN_PASSWORD not set in .env");
+            return;
+        }
+
+        mongoClient.findOne("users", new JsonObject().put("email", adminEmail), null, res -> {
+            if (res.succeeded() && res.result() == null) {
+                PasswordUtil.hashPasswordAsync(adminPassword).onSuccess(hashedPassword -> {
+                    JsonObject adminUser = new JsonObject()
+                            .put("name", "Admin")
+                            .put("email", adminEmail)
+                            .put("password", hashedPassword)
+                            .put("role", "admin")
+                            .put("isVerified", true);
+
+                    mongoClient.insert("users", adminUser, insert -> {
+                        if (insert.succeeded()) {
+                            StatsCounters.userRegistered();
+                            System.out.println("Admin user inserted");
+                        } else {
+                            System.err.println("Failed to insert admin: " + insert.cause().getMessage());
+                        }
+                    });
+                }).onFailure(err -> System.err.println("Failed to hash admin password: " + err.getMessage()));
+            } else {
+                System.out.println(" ");
+            }
+        });
+
+    }
+}
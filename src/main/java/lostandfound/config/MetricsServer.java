@@ -0,0 +1,104 @@
+package lostandfound.config;
+
+import io.vertx.core.Context;
+import io.vertx.core.Vertx;
+import lostandfound.config.utils.ImageRenditions;
+import lostandfound.config.utils.MatchEngine;
+import lostandfound.config.utils.Metrics;
+import lostandfound.config.utils.PasswordUtil;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.util.concurrent.TimeUnit;
+
+// GET /metrics in the Prometheus text format on its own port (METRICS_PORT, 0 disables), so it is
+// never reachable through the public API. Also registers the process-wide gauges.
+public class MetricsServer {
+    private static final int PORT = AppConfig.getInt("METRICS_PORT", 8889);
+    private static final long LAG_PROBE_MS = AppConfig.getLong("EVENT_LOOP_PROBE_MS", 500);
+
+    private final Vertx vertx;
+
+    public MetricsServer(Vertx vertx) {
+        this.vertx = vertx;
+    }
+
+    public void start() {
+        if (PORT <= 0) {
+            System.out.println("📊 Metrics endpoint disabled");
+            return;
+        }
+
+        registerJvmGauges();
+        registerPoolGauges();
+        probeCurrentLoop(vertx);
+
+        String host = AppConfig.get("METRICS_HOST", "127.0.0.1");
+        vertx.createHttpServer()
+                .requestHandler(request -> {
+                    if (!request.path().equals("/metrics")) {
+                        request.response().setStatusCode(404).end();
+                        return;
+                    }
+                    request.response()
+                            .putHeader("Content-Type", "text/plain; version=0.0.4; charset=utf-8")
+                            .end(Metrics.scrape());
+                })
+                .listen(PORT, host)
+                .onSuccess(server -> System.out.println("📊 Metrics on http://" + host + ":" + server.actualPort() + "/metrics"))
+                .onFailure(err -> System.err.println("❌ Metrics server failed to start: " + err.getMessage()));
+    }
+
+    private void registerJvmGauges() {
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        Metrics.gauge("jvm_memory_used_bytes", "JVM memory in use", () -> memory.getHeapMemoryUsage().getUsed(),
+                "area", "heap");
+        Metrics.gauge("jvm_memory_used_bytes", "JVM memory in use", () -> memory.getNonHeapMemoryUsage().getUsed(),
+                "area", "nonheap");
+        Metrics.gauge("jvm_memory_committed_bytes", "JVM memory committed",
+                () -> memory.getHeapMemoryUsage().getCommitted(), "area", "heap");
+        Metrics.gauge("jvm_memory_max_bytes", "JVM memory limit", () -> memory.getHeapMemoryUsage().getMax(),
+                "area", "heap");
+
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            Metrics.counter("jvm_gc_collections_total", "GC runs per collector", gc::getCollectionCount,
+                    "gc", gc.getName());
+            Metrics.counter("jvm_gc_collection_seconds_total", "Time spent in GC per collector",
+                    () -> gc.getCollectionTime() / 1000.0, "gc", gc.getName());
+        }
+
+        Metrics.gauge("jvm_threads_live", "Live JVM threads", () -> ManagementFactory.getThreadMXBean().getThreadCount());
+        Metrics.gauge("process_uptime_seconds", "Seconds since the JVM started",
+                () -> ManagementFactory.getRuntimeMXBean().getUptime() / 1000.0);
+    }
+
+    private void registerPoolGauges() {
+        Metrics.gauge("worker_pool_queued", "Jobs waiting for a worker thread", PasswordUtil::queueDepth,
+                "pool", "password");
+        Metrics.gauge("worker_pool_active", "Jobs running on a worker thread", PasswordUtil::activeCount,
+                "pool", "password");
+        // Renditions and matching only count queued and running together
+        Metrics.gauge("worker_pool_queued", "Jobs waiting for a worker thread",
+                () -> ImageRenditions.stats().getInteger("queued"), "pool", "renditions");
+        Metrics.gauge("worker_pool_queued", "Jobs waiting for a worker thread", MatchEngine::queueDepth,
+                "pool", "matching");
+    }
+
+    // Called from a verticle's start: a timer keeps rescheduling itself on that verticle's event loop, and
+    // how late it fires is the time queued tasks waited. Off along with the endpoint.
+    public static void probeCurrentLoop(Vertx vertx) {
+        if (PORT > 0 && Context.isOnEventLoopThread()) {
+            probe(vertx, Thread.currentThread().getName());
+        }
+    }
+
+    private static void probe(Vertx vertx, String loop) {
+        long expected = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(LAG_PROBE_MS);
+        vertx.setTimer(LAG_PROBE_MS, id -> {
+            Metrics.observe("vertx_event_loop_lag_seconds", "How late a scheduled task ran on each event loop",
+                    Math.max(0, System.nanoTime() - expected) / 1e9, "loop", loop);
+            probe(vertx, loop);
+        });
+    }
+}
@@ -0,0 +1,122 @@
+package lostandfound.config;
+
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonObject;
+import io.vertx.ext.mongo.FindOptions;
+import io.vertx.ext.mongo.MongoClient;
+import lostandfound.config.utils.ImageStore;
+import lostandfound.config.utils.ItemQueryCache;
+
+import java.util.List;
+
+// One-time move of base64 photoData out of item documents into ImageStore.
+// Done in small batches; a marker in "migrations" stops it from scanning again on later starts.
+public class PhotoMigration {
+    private static final String MIGRATION_ID = "photoData-to-uploads";
+    private static final int BATCH_SIZE = 20;
+
+    private final Vertx vertx;
+    private final MongoClient mongoClient;
+    private int migrated;
+    private int dropped;
+
+    public PhotoMigration(Vertx vertx, MongoClient mongoClient) {
+        this.vertx = vertx;
+        this.mongoClient = mongoClient;
+    }
+
+    public Future<Void> run() {
+        return mongoClient.findOne("migrations", new JsonObject().put("_id", MIGRATION_ID), null)
+                .compose(done -> {
+                    if (done != null) {
+                        return Future.succeededFuture();
+                    }
+
+                    Promise<Void> promise = Promise.promise();
+                    nextBatch(promise);
+                    return promise.future().compose(v -> markDone());
+                });
+    }
+
+    private void nextBatch(Promise<Void> promise) {
+        JsonObject query = new JsonObject().put("photoData", new JsonObject().put("$exists", true));
+        FindOptions options = new FindOptions()
+                .setLimit(BATCH_SIZE)
+                .setFields(new JsonObject().put("photoData", 1));
+
+        mongoClient.findWithOptions("items", query, options)
+                .onFailure(promise::fail)
+                .onSuccess(items -> {
+                    if (items.isEmpty()) {
+                        promise.complete();
+                        return;
+                    }
+                    migrateAll(items).onComplete(res -> {
+                        if (res.failed()) {
+                            promise.fail(res.cause());
+                        } else {
+                            nextBatch(promise);
+                        }
+                    });
+                });
+    }
+
+    private Future<Void> migrateAll(List<JsonObject> items) {
+        Future<Void> chain = Future.succeededFuture();
+        for (JsonObject item : items) {
+            chain = chain.compose(v -> migrate(item));
+        }
+        return chain;
+    }
+
+    private Future<Void> migrate(JsonObject item) {
+        JsonObject query = new JsonObject().put("_id", item.getValue("_id"));
+        JsonObject unset = new JsonObject().put("photoData", "");
+
+        // $exists also matches null (or non-string) photoData, which has nothing to decode
+        if (!(item.getValue("photoData") instanceof String photoData) || photoData.isBlank()) {
+            return drop(item, "empty");
+        }
+
+        // No size cap: these photos were accepted when they were posted
+        return ImageStore.storeBase64(vertx, photoData, Long.MAX_VALUE)
+                .compose(image -> {
+                    migrated++;
+                    JsonObject update = new JsonObject()
+                            .put("$set", image.toItemFields())
+                            .put("$unset", unset);
+                    return mongoClient.updateCollection("items", query, update).<Void>mapEmpty();
+                }, err -> {
+                    if (!(err instanceof IllegalArgumentException)) {
+                        return Future.failedFuture(err);
+                    }
+                    return drop(item, err.getMessage());
+                });
+    }
+
+    // Not a usable image; drop it so the batch loop can move on
+    private Future<Void> drop(JsonObject item, String reason) {
+        dropped++;
+        System.err.println("Dropping unreadable photoData on item " + item.getValue("_id") + ": " + reason);
+        JsonObject update = new JsonObject().put("$unset", new JsonObject().put("photoData", ""));
+        return mongoClient.updateCollection("items", new JsonObject().put("_id", item.getValue("_id")), update)
+                .<Void>mapEmpty();
+    }
+
+    private Future<Void> markDone() {
+        JsonObject marker = new JsonObject()
+                .put("_id", MIGRATION_ID)
+                .put("completedAt", System.currentTimeMillis())
+                .put("migrated", migrated)
+                .put("dropped", dropped);
+
+        ItemQueryCache.invalidateAll(); // cached pages may still lack photoUrl
+
+        return mongoClient.save("migrations", marker)
+                .onSuccess(id -> System.out.println("📦 Moved " + migrated + " item photos to " + ImageStore.UPLOADS_DIR
+                        + " (" + dropped + " unreadable dropped)"))
+                .mapEmpty();
+    }
+}
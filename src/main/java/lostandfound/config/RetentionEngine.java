@@ -0,0 +1,258 @@
+package lostandfound.config;
+
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import io.vertx.ext.mongo.FindOptions;
+import io.vertx.ext.mongo.MongoClient;
+import lostandfound.config.utils.ImageRenditions;
+import lostandfound.config.utils.ImageStore;
+import lostandfound.config.utils.ItemEvents;
+import lostandfound.config.utils.ItemQueryCache;
+import lostandfound.config.utils.MatchEngine;
+import lostandfound.config.utils.SearchIndex;
+import lostandfound.config.utils.StatsCounters;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+// Deletes expired items (claimed after RETENTION_CLAIMED_DAYS, unclaimed after RETENTION_UNCLAIMED_DAYS)
+// in small batches with a pause between them, once a day at RETENTION_TIME (local wall clock).
+// Each run is a document in "retention_runs" holding its cutoffs, phase and counts, so a run
+// interrupted by a restart is resumed with the same cutoffs instead of starting over.
+public class RetentionEngine {
+    private static final String RUNS = "retention_runs";
+    private static final String PHASE_CLAIMED = "claimed";
+    private static final String PHASE_UNCLAIMED = "unclaimed";
+    private static final long DAY_MS = 24L * 60 * 60 * 1000;
+
+    private static final int BATCH_SIZE = AppConfig.getInt("RETENTION_BATCH_SIZE", 100);
+    private static final long PAUSE_MS = AppConfig.getLong("RETENTION_PAUSE_MS", 500);
+    private static final long CLAIMED_DAYS = AppConfig.getLong("RETENTION_CLAIMED_DAYS", 7);
+    private static final long UNCLAIMED_DAYS = AppConfig.getLong("RETENTION_UNCLAIMED_DAYS", 30);
+    private static final LocalTime RUN_AT = LocalTime.parse(AppConfig.get("RETENTION_TIME", "03:30"));
+
+    // Only what the cache, stats and blob cleanup need
+    private static final JsonObject BATCH_FIELDS = new JsonObject()
+            .put("status", 1).put("categoryId", 1).put("location", 1).put("title", 1)
+            .put("isClaimed", 1).put("photoUrl", 1).put("photoHash", 1);
+
+    private final Vertx vertx;
+    private final MongoClient mongoClient;
+    // Set before a run's document is written, so two triggers can't both start one
+    private boolean running;
+
+    public RetentionEngine(Vertx vertx, MongoClient mongoClient) {
+        this.vertx = vertx;
+        this.mongoClient = mongoClient;
+    }
+
+    public void start() {
+        // A run that was cut short by a restart goes first
+        mongoClient.findOne(RUNS, new JsonObject().put("status", "running"), null)
+                .onSuccess(unfinished -> {
+                    if (unfinished != null && !running) {
+                        System.out.println("🧹 Resuming retention run " + unfinished.getString("_id"));
+                        running = true;
+                        execute(unfinished);
+                    }
+                })
+                .onFailure(err -> System.err.println("❌ Failed to look up unfinished retention run: " + err.getMessage()));
+
+        scheduleNext();
+    }
+
+    private void scheduleNext() {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime next = now.toLocalDate().atTime(RUN_AT);
+        if (!next.isAfter(now)) {
+            next = next.plusDays(1);
+        }
+        long delay = Math.max(1, Duration.between(now, next).toMillis());
+
+        vertx.setTimer(delay, id -> {
+            runNow();
+            scheduleNext();
+        });
+    }
+
+    public void runNow() {
+        if (running) {
+            return; // the previous run is still going; it will pick up everything expired
+        }
+        running = true;
+        long now = System.currentTimeMillis();
+        JsonObject run = new JsonObject()
+                .put("_id", "retention-" + now)
+                .put("status", "running")
+                .put("phase", PHASE_CLAIMED)
+                .put("startedAt", now)
+                .put("claimedCutoff", now - CLAIMED_DAYS * DAY_MS)
+                .put("unclaimedCutoff", now - UNCLAIMED_DAYS * DAY_MS)
+                .put("deletedClaimed", 0)
+                .put("deletedUnclaimed", 0)
+                .put("deletedFiles", 0)
+                .put("batches", 0);
+
+        mongoClient.save(RUNS, run)
+                .onSuccess(id -> execute(run))
+                .onFailure(err -> {
+                    running = false;
+                    System.err.println("❌ Failed to start retention run: " + err.getMessage());
+                });
+    }
+
+    // The caller has already set running
+    private void execute(JsonObject run) {
+        Promise<Void> promise = Promise.promise();
+        nextBatch(run, promise);
+        promise.future()
+                .compose(v -> finish(run))
+                .onComplete(res -> {
+                    running = false;
+                    if (res.failed()) {
+                        // The run stays "running" and is resumed on the next start
+                        System.err.println("❌ Retention run " + run.getString("_id") + " stopped: " + res.cause().getMessage());
+                    }
+                });
+    }
+
+    private void nextBatch(JsonObject run, Promise<Void> promise) {
+        String phase = run.getString("phase");
+        if (phase == null) {
+            promise.complete();
+            return;
+        }
+        JsonObject query = expiredQuery(run, phase);
+        FindOptions options = new FindOptions().setLimit(BATCH_SIZE).setFields(BATCH_FIELDS);
+
+        mongoClient.findWithOptions("items", query, options)
+                .compose(items -> items.isEmpty()
+                        ? advancePhase(run).map(false)
+                        : deleteBatch(run, phase, query, items).map(true))
+                .onFailure(promise::fail)
+                // Give the primary (and the event loop) room between batches
+                .onSuccess(deleted -> vertx.setTimer(deleted ? PAUSE_MS : 1, id -> nextBatch(run, promise)));
+    }
+
+    private Future<Void> deleteBatch(JsonObject run, String phase, JsonObject query, List<JsonObject> items) {
+        JsonArray ids = new JsonArray();
+        items.forEach(item -> ids.add(item.getValue("_id")));
+
+        // Re-applying the expiry filter keeps an item that changed since the find (e.g. just claimed)
+        JsonObject delete = query.copy().put("_id", new JsonObject().put("$in", ids));
+
+        return mongoClient.removeDocuments("items", delete)
+                .compose(result -> survivors(ids, result.getRemovedCount(), items.size()).compose(kept -> {
+                    JsonArray removedIds = new JsonArray();
+                    for (JsonObject item : items) {
+                        String id = String.valueOf(item.getValue("_id"));
+                        if (!kept.contains(id)) {
+                            SearchIndex.remove(id);
+                            ItemQueryCache.invalidate(item, null);
+                            ItemEvents.publish(vertx, ItemEvents.DELETED, item);
+                            removedIds.add(id);
+                        }
+                    }
+                    return MatchEngine.forget(mongoClient, removedIds).map(result.getRemovedCount());
+                }))
+                .compose(removed -> {
+                    String counter = PHASE_CLAIMED.equals(phase) ? "deletedClaimed" : "deletedUnclaimed";
+                    run.put(counter, run.getLong(counter) + removed)
+                            .put("batches", run.getInteger("batches") + 1);
+
+                    return deleteOrphanedFiles(items).compose(files -> {
+                        run.put("deletedFiles", run.getLong("deletedFiles") + files);
+                        return saveProgress(run);
+                    });
+                });
+    }
+
+    // Ids from the batch that the delete skipped; only looked up in the rare case something changed
+    private Future<Set<String>> survivors(JsonArray ids, long removed, int found) {
+        if (removed == found) {
+            return Future.succeededFuture(Set.of());
+        }
+        FindOptions options = new FindOptions().setFields(new JsonObject().put("_id", 1));
+        return mongoClient.findWithOptions("items", new JsonObject().put("_id", new JsonObject().put("$in", ids)), options)
+                .map(items -> {
+                    Set<String> kept = new HashSet<>();
+                    items.forEach(item -> kept.add(String.valueOf(item.getValue("_id"))));
+                    return kept;
+                });
+    }
+
+    // A file can be shared by several items (content-addressed), so only delete it when nothing references it.
+    // An upload of the very same image landing between the count and the delete would lose its file; accepted.
+    private Future<Integer> deleteOrphanedFiles(List<JsonObject> items) {
+        Map<String, String> urlsByHash = new LinkedHashMap<>();
+        for (JsonObject item : items) {
+            if (item.getString("photoHash") != null && item.getString("photoUrl") != null) {
+                urlsByHash.put(item.getString("photoHash"), item.getString("photoUrl"));
+            }
+        }
+
+        List<Future<Boolean>> deletes = new ArrayList<>();
+        urlsByHash.forEach((hash, url) -> deletes.add(mongoClient.count("items", new JsonObject().put("photoHash", hash))
+                .compose(refs -> refs == 0
+                        ? ImageRenditions.delete(vertx, url).compose(v -> ImageStore.delete(vertx, url))
+                        : Future.succeededFuture(false))
+                .otherwise(err -> {
+                    System.err.println("Failed to delete " + url + ": " + err.getMessage());
+                    return false;
+                })));
+
+        return Future.all(deletes).map(all -> {
+            int deleted = 0;
+            for (Future<Boolean> f : deletes) {
+                if (Boolean.TRUE.equals(f.result())) {
+                    deleted++;
+                }
+            }
+            return deleted;
+        });
+    }
+
+    private Future<Void> advancePhase(JsonObject run) {
+        run.put("phase", PHASE_CLAIMED.equals(run.getString("phase")) ? PHASE_UNCLAIMED : null);
+        return saveProgress(run);
+    }
+
+    private Future<Void> saveProgress(JsonObject run) {
+        return mongoClient.save(RUNS, run).mapEmpty();
+    }
+
+    private Future<Void> finish(JsonObject run) {
+        run.put("status", "completed").put("finishedAt", System.currentTimeMillis());
+
+        // Per-item decrements would double count anything removed concurrently; recount instead
+        StatsCounters.reconcile(mongoClient)
+                .onFailure(err -> System.err.println("❌ Failed to reconcile stats after retention: " + err.getMessage()));
+
+        return saveProgress(run).onSuccess(v -> System.out.println("🧹 Retention run " + run.getString("_id") + " deleted "
+                + run.getLong("deletedClaimed") + " claimed and " + run.getLong("deletedUnclaimed") + " unclaimed items, "
+                + run.getLong("deletedFiles") + " files, in " + run.getInteger("batches") + " batches"));
+    }
+
+    private static JsonObject expiredQuery(JsonObject run, String phase) {
+        if (PHASE_CLAIMED.equals(phase)) {
+            return new JsonObject()
+                    .put("isClaimed", true)
+                    .put("claimedAt", new JsonObject().put("$lte", run.getLong("claimedCutoff")));
+        }
+        return new JsonObject()
+                .put("$or", new JsonArray()
+                        .add(new JsonObject().put("isClaimed", false))
+                        .add(new JsonObject().put("isClaimed", new JsonObject().put("$exists", false))))
+                .put("createdAt", new JsonObject().put("$lte", run.getLong("unclaimedCutoff")));
+    }
+}
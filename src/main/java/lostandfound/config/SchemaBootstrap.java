@@ -0,0 +1,198 @@
+package lostandfound.config;
+
+import io.vertx.core.Future;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import io.vertx.ext.mongo.IndexOptions;
+import io.vertx.ext.mongo.MongoClient;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Declares the indexes every hot query relies on and creates them at startup (createIndex is a no-op
+// when the index already exists). With SCHEMA_CHECK=true it also explains each handler's query shape
+// and fails startup if any of them would scan the whole collection.
+public class SchemaBootstrap {
+
+    private record IndexSpec(String collection, JsonObject keys, IndexOptions options) {}
+
+    private record QueryShape(String name, String collection, JsonObject filter, JsonObject sort) {}
+
+    private static final JsonObject NEWEST_FIRST = new JsonObject().put("createdAt", -1).put("_id", -1);
+
+    private static final List<IndexSpec> INDEXES = List.of(
+            // Login, register, profile, forgot-password
+            new IndexSpec("users", new JsonObject().put("email", 1),
+                    new IndexOptions().name("email_unique").unique(true)),
+            // Email verification link
+            new IndexSpec("users", new JsonObject().put("verifyToken", 1),
+                    new IndexOptions().name("verifyToken").sparse(true)),
+            // Reset link lookup; expired tokens are removed by Mongo's TTL monitor
+            new IndexSpec("password_resets", new JsonObject().put("token", 1),
+                    new IndexOptions().name("token_unique").unique(true)),
+            new IndexSpec("password_resets", new JsonObject().put("expireAt", 1),
+                    new IndexOptions().name("expireAt_ttl").expireAfter(0L, TimeUnit.SECONDS)),
+            // Default item list order and keyset pagination
+            new IndexSpec("items", NEWEST_FIRST,
+                    new IndexOptions().name("createdAt_id")),
+            // /api/items/mine
+            new IndexSpec("items", new JsonObject().put("postedBy", 1).mergeIn(NEWEST_FIRST),
+                    new IndexOptions().name("postedBy_createdAt_id")),
+            // ?status= filter and sortBy=status
+            new IndexSpec("items", new JsonObject().put("status", 1).mergeIn(NEWEST_FIRST),
+                    new IndexOptions().name("status_createdAt_id")),
+            // ?categoryId= filter and sortBy=category
+            new IndexSpec("items", new JsonObject().put("categoryId", 1).mergeIn(NEWEST_FIRST),
+                    new IndexOptions().name("categoryId_createdAt_id")),
+            // Cleanup of claimed items
+            new IndexSpec("items", new JsonObject().put("isClaimed", 1).put("claimedAt", 1),
+                    new IndexOptions().name("isClaimed_claimedAt")),
+            // Cleanup of unclaimed items
+            new IndexSpec("items", new JsonObject().put("isClaimed", 1).put("createdAt", 1),
+                    new IndexOptions().name("isClaimed_createdAt")),
+            // MatchEngine candidates: opposite status in the same category, newest first
+            new IndexSpec("items", new JsonObject().put("status", 1).put("categoryId", 1).put("createdAt", -1),
+                    new IndexOptions().name("status_categoryId_createdAt")),
+            // GET /api/items/:id/matches from either side; cleanup on delete
+            new IndexSpec("matches", new JsonObject().put("lostId", 1).put("score", -1),
+                    new IndexOptions().name("lostId_score")),
+            new IndexSpec("matches", new JsonObject().put("foundId", 1).put("score", -1),
+                    new IndexOptions().name("foundId_score")),
+            // Retention: is a deleted item's image still used by another item?
+            new IndexSpec("items", new JsonObject().put("photoHash", 1),
+                    new IndexOptions().name("photoHash").sparse(true)),
+            // Mail outbox worker: due messages in order; delivered ones expire after a week
+            new IndexSpec("mail_outbox", new JsonObject().put("status", 1).put("nextAttemptAt", 1),
+                    new IndexOptions().name("status_nextAttemptAt")),
+            new IndexSpec("mail_outbox", new JsonObject().put("sentAt", 1),
+                    new IndexOptions().name("sentAt_ttl").expireAfter(7L, TimeUnit.DAYS))
+    );
+
+    private static final List<QueryShape> HOT_QUERIES = List.of(
+            new QueryShape("login/register by email", "users",
+                    new JsonObject().put("email", "check@kristujayanti.com"), null),
+            new QueryShape("verify email", "users",
+                    new JsonObject().put("verifyToken", "check"), null),
+            new QueryShape("reset password", "password_resets",
+                    new JsonObject().put("token", "check"), null),
+            new QueryShape("GET /api/items", "items",
+                    new JsonObject(), NEWEST_FIRST),
+            new QueryShape("GET /api/items?status=", "items",
+                    new JsonObject().put("status", "lost"), NEWEST_FIRST),
+            new QueryShape("GET /api/items?categoryId=", "items",
+                    new JsonObject().put("categoryId", "check"), NEWEST_FIRST),
+            new QueryShape("GET /api/items/mine", "items",
+                    new JsonObject().put("postedBy", "check@kristujayanti.com"), NEWEST_FIRST),
+            new QueryShape("cleanup claimed", "items",
+                    new JsonObject()
+                            .put("isClaimed", true)
+                            .put("claimedAt", new JsonObject().put("$lte", 0L)), null),
+            new QueryShape("cleanup unclaimed", "items",
+                    new JsonObject()
+                            .put("$or", new JsonArray()
+                                    .add(new JsonObject().put("isClaimed", false))
+                                    .add(new JsonObject().put("isClaimed", new JsonObject().put("$exists", false))))
+                            .put("createdAt", new JsonObject().put("$lte", 0L)), null),
+            new QueryShape("match candidates", "items",
+                    new JsonObject()
+                            .put("status", "found")
+                            .put("categoryId", "check")
+                            .put("isClaimed", new JsonObject().put("$ne", true))
+                            .put("createdAt", new JsonObject().put("$gte", 0L).put("$lte", 0L)),
+                    new JsonObject().put("createdAt", -1)),
+            new QueryShape("GET /api/items/:id/matches", "matches",
+                    new JsonObject().put("lostId", "check"), new JsonObject().put("score", -1)),
+            new QueryShape("retention image references", "items",
+                    new JsonObject().put("photoHash", "check"), null),
+            new QueryShape("mail outbox due", "mail_outbox",
+                    new JsonObject()
+                            .put("status", new JsonObject().put("$in", new JsonArray().add("pending").add("sending")))
+                            .put("nextAttemptAt", new JsonObject().put("$lte", 0L)),
+                    new JsonObject().put("nextAttemptAt", 1))
+    );
+
+    private final MongoClient mongoClient;
+
+    public SchemaBootstrap(MongoClient mongoClient) {
+        this.mongoClient = mongoClient;
+    }
+
+    public Future<Void> run() {
+        Future<Void> created = createIndexes();
+        if (!AppConfig.getBoolean("SCHEMA_CHECK", false)) {
+            // Outside check mode a missing index is logged above but does not stop the app
+            return created.otherwiseEmpty();
+        }
+        return created.compose(v -> checkQueryPlans());
+    }
+
+    private Future<Void> createIndexes() {
+        List<Future<Void>> results = new ArrayList<>();
+        for (IndexSpec index : INDEXES) {
+            results.add(mongoClient.createIndexWithOptions(index.collection(), index.keys(), index.options())
+                    .onFailure(err -> System.err.println("❌ Failed to create index " + index.collection() + "."
+                            + index.options().getName() + ": " + err.getMessage())));
+        }
+        return Future.all(results)
+                .onSuccess(v -> System.out.println("🗂️ " + INDEXES.size() + " indexes in place"))
+                .mapEmpty();
+    }
+
+    private Future<Void> checkQueryPlans() {
+        List<Future<String>> results = new ArrayList<>();
+        for (QueryShape shape : HOT_QUERIES) {
+            results.add(explain(shape).map(plan -> usesCollectionScan(plan) ? shape.name() : null));
+        }
+
+        return Future.all(results).compose(all -> {
+            List<String> scans = new ArrayList<>();
+            for (Future<String> result : results) {
+                if (result.result() != null) {
+                    scans.add(result.result());
+                }
+            }
+            if (!scans.isEmpty()) {
+                scans.forEach(name -> System.err.println("❌ COLLSCAN in query plan for: " + name));
+                return Future.failedFuture("Query plan check failed for " + scans);
+            }
+            System.out.println("✅ All " + HOT_QUERIES.size() + " hot query shapes use an index");
+            return Future.succeededFuture();
+        });
+    }
+
+    private Future<JsonObject> explain(QueryShape shape) {
+        JsonObject find = new JsonObject()
+                .put("find", shape.collection())
+                .put("filter", shape.filter());
+        if (shape.sort() != null) {
+            find.put("sort", shape.sort());
+        }
+
+        JsonObject command = new JsonObject()
+                .put("explain", find)
+                .put("verbosity", "queryPlanner");
+        return mongoClient.runCommand("explain", command);
+    }
+
+    // Walks the whole plan tree (inputStage, inputStages, SBE queryPlan, ...) looking for a COLLSCAN stage
+    private static boolean usesCollectionScan(Object node) {
+        if (node instanceof JsonObject object) {
+            if ("COLLSCAN".equals(object.getValue("stage"))) {
+                return true;
+            }
+            for (String key : object.fieldNames()) {
+                if (!key.equals("rejectedPlans") && usesCollectionScan(object.getValue(key))) {
+                    return true;
+                }
+            }
+        } else if (node instanceof JsonArray array) {
+            for (Object child : array) {
+                if (usesCollectionScan(child)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+}
@@ -1,14 +1,34 @@
 package lostandfound.config.handlers;
 
+import io.vertx.core.Future;
 import io.vertx.core.Vertx;
 import io.vertx.core.json.JsonArray;
 import io.vertx.core.json.JsonObject;
+import io.vertx.core.streams.ReadStream;
+import io.vertx.ext.mongo.FindOptions;
 import io.vertx.ext.mongo.MongoClient;
+import io.vertx.ext.mongo.UpdateOptions;
 import io.vertx.ext.web.Router;
 import io.vertx.ext.web.RoutingContext;
 import lostandfound.config.middleware.AuthMiddleware;
+import lostandfound.config.utils.CategoryCache;
+import lostandfound.config.utils.ImageCache;
+import lostandfound.config.utils.ImageRenditions;
+import lostandfound.config.utils.ItemEvents;
+import lostandfound.config.utils.ItemQueryCache;
+import lostandfound.config.utils.JsonStreamer;
+import lostandfound.config.utils.MailUtil;
+import lostandfound.config.utils.MatchEngine;
+import lostandfound.config.utils.RequestBodies;
+import lostandfound.config.utils.SearchIndex;
+import lostandfound.config.utils.StallMonitor;
+import lostandfound.config.utils.StatsCounters;
+import lostandfound.config.utils.TokenBlacklist;
+import lostandfound.config.utils.TokenCache;
 
 public class AdminHandler {
+    private static final int STREAM_BATCH_SIZE = 200;
+
     private final MongoClient mongoClient;
     private final Vertx vertx;
 
@@ -19,13 +39,21 @@ public class AdminHandler {
 
     public void setupRoutes(Router router) {
         router.get("/api/admin/items").handler(AuthMiddleware.requireAdmin()).handler(this::handleViewAllItems);
+        router.get("/api/admin/items/export").handler(AuthMiddleware.requireAdmin()).handler(this::handleExportItems);
         router.delete("/api/admin/items/:id/inappropriate")
                 .handler(AuthMiddleware.requireAdmin())
                 .handler(this::handleDeleteItem);
 
         router.get("/api/admin/stats").handler(AuthMiddleware.requireAdmin()).handler(this::handleStats);
+        router.get("/api/admin/cache-stats").handler(AuthMiddleware.requireAdmin()).handler(this::handleCacheStats);
+        router.get("/api/admin/stalls").handler(AuthMiddleware.requireAdmin()).handler(this::handleStalls);
+        router.delete("/api/admin/stalls").handler(AuthMiddleware.requireAdmin()).handler(this::handleResetStalls);
+        router.get("/api/admin/retention").handler(AuthMiddleware.requireAdmin()).handler(this::handleRetentionRuns);
+        router.get("/api/admin/mail-outbox").handler(AuthMiddleware.requireAdmin()).handler(this::handleMailOutbox);
+        router.post("/api/admin/mail-outbox/retry").handler(AuthMiddleware.requireAdmin()).handler(this::handleRetryDeadMail);
         // 🆕 Add routes for category management
-        router.post("/api/admin/categories").handler(AuthMiddleware.requireAdmin()).handler(this::handleAddCategory);
+        router.post("/api/admin/categories").handler(AuthMiddleware.requireAdmin()).handler(RequestBodies.json())
+                .handler(this::handleAddCategory);
         router.get("/api/categories").handler(this::handleGetCategories);  // Public
         router.delete("/api/admin/categories/:id")
                 .handler(AuthMiddleware.requireAdmin())
@@ -34,24 +62,36 @@ public class AdminHandler {
 
     }
 
+    // Streamed from a batch cursor, so memory does not grow with the collection
     private void handleViewAllItems(RoutingContext ctx) {
-        mongoClient.find("items", new JsonObject(), res -> {
-            if (res.succeeded()) {
-                ctx.response()
-                        .putHeader("Content-Type", "application/json")
-                        .end(new JsonArray(res.result()).encode());
-            } else {
-                ctx.response().setStatusCode(500).end("Failed to fetch items");
-            }
-        });
+        JsonStreamer.stream(ctx, findAllItems(), JsonStreamer.Format.JSON_ARRAY);
+    }
+
+    // Same listing as newline-delimited JSON, one item per line
+    private void handleExportItems(RoutingContext ctx) {
+        ctx.response().putHeader("Content-Disposition", "attachment; filename=\"items.ndjson\"");
+        JsonStreamer.stream(ctx, findAllItems(), JsonStreamer.Format.NDJSON);
+    }
+
+    private ReadStream<JsonObject> findAllItems() {
+        FindOptions options = new FindOptions().setBatchSize(STREAM_BATCH_SIZE);
+        return mongoClient.findBatchWithOptions("items", new JsonObject(), options);
     }
 
     private void handleDeleteItem(RoutingContext ctx) {
         String itemId = ctx.pathParam("id");
         JsonObject query = new JsonObject().put("_id", itemId);
 
-        mongoClient.removeDocument("items", query, res -> {
+        mongoClient.findOneAndDelete("items", query, res -> {
             if (res.succeeded()) {
+                SearchIndex.remove(itemId);
+                ItemQueryCache.invalidate(res.result(), null);
+                StatsCounters.itemDeleted(res.result());
+                if (res.result() != null) {
+                    ItemEvents.publish(vertx, ItemEvents.DELETED, res.result());
+                    MatchEngine.forget(mongoClient, new JsonArray().add(itemId))
+                            .onFailure(err -> System.err.println("Failed to remove matches for item " + itemId + ": " + err.getMessage()));
+                }
                 ctx.response().end("Item deleted");
             } else {
                 ctx.response().setStatusCode(500).end("Failed to delete item");
@@ -59,30 +99,109 @@ public class AdminHandler {
         });
     }
 
+    // One Redis read of the counters kept by the write paths; Mongo is only counted if they are missing
     private void handleStats(RoutingContext ctx) {
-        JsonObject result = new JsonObject();
+        StatsCounters.read()
+                .compose(stats -> stats.containsKey("items")
+                        ? Future.succeededFuture(stats)
+                        : StatsCounters.reconcile(mongoClient).compose(v -> StatsCounters.read()))
+                .onSuccess(stats -> ctx.response()
+                        .putHeader("Content-Type", "application/json")
+                        .end(stats.encode()))
+                .onFailure(err -> {
+                    System.err.println("Failed to fetch stats: " + err.getMessage());
+                    ctx.response().setStatusCode(500).end("Failed to fetch stats");
+                });
+    }
+
+    private void handleCacheStats(RoutingContext ctx) {
+        JsonObject result = new JsonObject()
+                .put("tokens", TokenCache.stats())
+                .put("blacklist", TokenBlacklist.stats())
+                .put("itemQueries", ItemQueryCache.stats())
+                .put("images", ImageCache.stats())
+                .put("renditions", ImageRenditions.stats())
+                .put("searchIndex", new JsonObject()
+                        .put("ready", SearchIndex.isReady())
+                        .put("items", SearchIndex.size()));
 
-        mongoClient.count("users", new JsonObject(), userCount -> {
-            if (userCount.succeeded()) {
-                result.put("users", userCount.result());
+        ctx.response()
+                .putHeader("Content-Type", "application/json")
+                .end(result.encode());
+    }
 
-                mongoClient.count("items", new JsonObject(), itemCount -> {
-                    result.put("items", itemCount.result());
+    // Event-loop stalls grouped by route and handler, worst first, plus the latest ones with stack samples
+    private void handleStalls(RoutingContext ctx) {
+        ctx.response()
+                .putHeader("Content-Type", "application/json")
+                .end(StallMonitor.stats().encode());
+    }
 
-                    JsonObject claimedQuery = new JsonObject().put("isClaimed", true);
-                    mongoClient.count("items", claimedQuery, claimCount -> {
-                        result.put("claimed", claimCount.result());
+    private void handleResetStalls(RoutingContext ctx) {
+        StallMonitor.reset();
+        ctx.response().setStatusCode(204).end();
+    }
 
-                        ctx.response()
+    // Recent retention runs with what each one deleted (a "running" one is in progress or will resume)
+    private void handleRetentionRuns(RoutingContext ctx) {
+        FindOptions options = new FindOptions()
+                .setSort(new JsonObject().put("startedAt", -1))
+                .setLimit(10);
+
+        mongoClient.findWithOptions("retention_runs", new JsonObject(), options)
+                .onSuccess(runs -> ctx.response()
+                        .putHeader("Content-Type", "application/json")
+                        .end(new JsonArray(runs).encode()))
+                .onFailure(err -> ctx.response().setStatusCode(500).end("Failed to fetch retention runs"));
+    }
+
+    // Message counts by status, plus the most recent dead letters
+    private void handleMailOutbox(RoutingContext ctx) {
+        JsonArray pipeline = new JsonArray()
+                .add(new JsonObject().put("$group", new JsonObject()
+                        .put("_id", "$status")
+                        .put("count", new JsonObject().put("$sum", 1))));
+        JsonObject byStatus = new JsonObject();
+
+        FindOptions deadOptions = new FindOptions()
+                .setSort(new JsonObject().put("failedAt", -1))
+                .setLimit(20)
+                .setFields(new JsonObject().put("text", 0));
+
+        mongoClient.aggregate(MailUtil.OUTBOX, pipeline)
+                .exceptionHandler(err -> ctx.response().setStatusCode(500).end("Failed to read mail outbox"))
+                .endHandler(v -> mongoClient.findWithOptions(MailUtil.OUTBOX,
+                                new JsonObject().put("status", MailUtil.DEAD), deadOptions)
+                        .onSuccess(dead -> ctx.response()
                                 .putHeader("Content-Type", "application/json")
-                                .end(result.encode());
-                    });
-                });
-            } else {
-                ctx.response().setStatusCode(500).end("Failed to fetch stats");
-            }
-        });
+                                .end(new JsonObject()
+                                        .put("byStatus", byStatus)
+                                        .put("deadLetters", new JsonArray(dead))
+                                        .encode()))
+                        .onFailure(err -> ctx.response().setStatusCode(500).end("Failed to read mail outbox")))
+                .handler(group -> byStatus.put(String.valueOf(group.getValue("_id")), group.getLong("count")));
+    }
+
+    // Puts every dead letter back in the queue with a fresh set of attempts
+    private void handleRetryDeadMail(RoutingContext ctx) {
+        JsonObject update = new JsonObject()
+                .put("$set", new JsonObject()
+                        .put("status", MailUtil.PENDING)
+                        .put("attempts", 0)
+                        .put("nextAttemptAt", System.currentTimeMillis()))
+                .put("$unset", new JsonObject().put("failedAt", ""));
+
+        mongoClient.updateCollectionWithOptions(MailUtil.OUTBOX, new JsonObject().put("status", MailUtil.DEAD),
+                        update, new UpdateOptions().setMulti(true))
+                .onSuccess(res -> {
+                    vertx.eventBus().send(MailUtil.WAKE_ADDRESS, null);
+                    ctx.response()
+                            .putHeader("Content-Type", "application/json")
+                            .end(new JsonObject().put("requeued", res.getDocModified()).encode());
+                })
+                .onFailure(err -> ctx.response().setStatusCode(500).end("Failed to requeue mail"));
     }
+
     // Admin adds a category
     private void handleAddCategory(RoutingContext ctx) {
         JsonObject body = ctx.body().asJsonObject();
@@ -101,6 +220,7 @@ public class AdminHandler {
 
         mongoClient.insert("categories", category, res -> {
             if (res.succeeded()) {
+                CategoryCache.refresh(mongoClient);
                 ctx.response().setStatusCode(201).end("Category added");
             } else {
                 ctx.response().setStatusCode(500).end("Failed to add category");
@@ -108,15 +228,25 @@ public class AdminHandler {
         });
     }
 
-    // Anyone can fetch categories
+    // Anyone can fetch categories. Served from CategoryCache; If-None-Match gets a 304
     public void handleGetCategories(RoutingContext ctx) {
-        mongoClient.find("categories", new JsonObject(), res -> {
-            if (res.succeeded()) {
+        CategoryCache.get(mongoClient).onComplete(res -> {
+            if (res.failed()) {
+                ctx.response().setStatusCode(500).end("Failed to fetch categories");
+                return;
+            }
+
+            CategoryCache.Snapshot categories = res.result();
+            ctx.response()
+                    .putHeader("ETag", categories.etag())
+                    .putHeader("Cache-Control", "no-cache"); // browsers may keep it but must revalidate
+
+            if (categories.matches(ctx.request().getHeader("If-None-Match"))) {
+                ctx.response().setStatusCode(304).end();
+            } else {
                 ctx.response()
                         .putHeader("Content-Type", "application/json")
-                        .end(new JsonArray(res.result()).encode());
-            } else {
-                ctx.response().setStatusCode(500).end("Failed to fetch categories");
+                        .end(categories.body());
             }
         });
     }
@@ -136,6 +266,7 @@ public class AdminHandler {
                 if (res.result().getRemovedCount() == 0) {
                     ctx.response().setStatusCode(404).end("Category not found");
                 } else {
+                    CategoryCache.refresh(mongoClient);
                     ctx.response().setStatusCode(200).end("Category deleted");
                 }
             } else {
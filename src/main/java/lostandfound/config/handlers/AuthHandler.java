@@ -1,7 +1,7 @@
 package lostandfound.config.handlers;
 
 import lostandfound.config.middleware.AuthMiddleware;
-import io.vertx.redis.client.RedisAPI;
+import lostandfound.config.middleware.RateLimiter;
 import io.vertx.core.Vertx;
 import io.vertx.core.json.JsonObject;
 import io.vertx.ext.mongo.MongoClient;
@@ -11,11 +11,16 @@ import lostandfound.config.utils.JwtUtil;
 import lostandfound.config.utils.MailUtil;
 import lostandfound.config.utils.PasswordUtil;
 import lostandfound.config.utils.RedisUtil;
+import lostandfound.config.utils.RequestBodies;
+import lostandfound.config.utils.StatsCounters;
+import lostandfound.config.utils.TokenBlacklist;
 
 
+import java.time.Instant;
 import java.util.UUID;
 
 public class AuthHandler {
+    private static final long RESET_TOKEN_TTL_MS = 10 * 60 * 1000;
 
     private final MongoClient mongoClient;
     private final Vertx vertx;
@@ -26,36 +31,27 @@ public class AuthHandler {
     }
 
     public void setupRoutes(Router router) {
-        router.post("/api/auth/register").handler(this::handleRegister);
+        // Rate limits go before any BCrypt or Mongo work; the IP check even before the body is read
+        router.post("/api/auth/register").handler(RateLimiter.byIp("register")).handler(RequestBodies.json())
+                .handler(RateLimiter.byAccount("register", RateLimiter::bodyEmail)).handler(this::handleRegister);
         router.get("/api/auth/verify/:token").handler(this::handleVerifyEmail);
-        router.post("/api/auth/login").handler(this::handleLogin);
-        router.post("/api/auth/forgot-password").handler(this::handleForgotPassword);
+        router.post("/api/auth/login").handler(RateLimiter.byIp("login")).handler(RequestBodies.json())
+                .handler(RateLimiter.byAccount("login", RateLimiter::bodyEmail)).handler(this::handleLogin);
+        router.post("/api/auth/forgot-password").handler(RateLimiter.byIp("forgot-password")).handler(RequestBodies.json())
+                .handler(RateLimiter.byAccount("forgot-password", RateLimiter::bodyEmail)).handler(this::handleForgotPassword);
         router.post("/api/auth/logout")
                 .handler(AuthMiddleware.requireAuth(RedisUtil.getRedis()))
                 .handler(this::handleLogout);
-        router.get("/api/me").handler(this::handleGetMyProfile);
-        router.patch("/api/me").handler(this::handleUpdateProfile);
-        router.post("/api/auth/reset-password").handler(this::handleResetPassword);
+        router.get("/api/me").handler(AuthMiddleware.requireAuth()).handler(this::handleGetMyProfile);
+        router.patch("/api/me").handler(AuthMiddleware.requireAuth()).handler(RequestBodies.json()).handler(this::handleUpdateProfile);
+        router.post("/api/auth/reset-password").handler(RequestBodies.json()).handler(this::handleResetPassword);
 
 
 
     }
     private void handleUpdateProfile(RoutingContext ctx)
     {
-        String authHeader = ctx.request().getHeader("Authorization");
-
-        if (authHeader == null || !authHeader.startsWith("Bearer ")) {
-            ctx.response().setStatusCode(401).end("Missing or invalid token");
-            return;
-        }
-
-        String token = authHeader.substring(7);
-        if (!JwtUtil.validateToken(token)) {
-            ctx.response().setStatusCode(401).end("Invalid or expired token");
-            return;
-        }
-
-        String email = JwtUtil.getEmailFromToken(token);
+        String email = ctx.get("userEmail");
         JsonObject body = ctx.body().asJsonObject();
         String newName = body.getString("name");
 
@@ -78,19 +74,7 @@ public class AuthHandler {
 
     private  void handleGetMyProfile(RoutingContext ctx)
     {
-        String authHeader = ctx.request().getHeader("Authorization");
-        if (authHeader == null || !authHeader.startsWith("Bearer ")) {
-            ctx.response().setStatusCode(401).end("Missing or invalid Authorization header");
-            return;
-        }
-        String token = authHeader.substring(7); // remove "Bearer " prefix
-        String email;
-        try {
-            email = JwtUtil.getEmailFromToken(token);
-        } catch (Exception e) {
-            ctx.response().setStatusCode(401).end("Invalid or expired token");
-            return;
-        }
+        String email = ctx.get("userEmail");
 
         mongoClient.findOne("users", new JsonObject().put("email", email), null, res -> {
             if (res.succeeded() && res.result() != null) {
@@ -131,27 +115,29 @@ public class AuthHandler {
             if (lookup.succeeded() && lookup.result() != null) {
                 ctx.response().setStatusCode(409).end("Email already registered");
             } else {
-                String hashed = PasswordUtil.hashPassword(password);
-                String token = UUID.randomUUID().toString();
-                long expiry = System.currentTimeMillis() + (1000 * 60 * 10); // 10 mins
-
-                JsonObject user = new JsonObject()
-                        .put("name", name)
-                        .put("email", email)
-                        .put("password", hashed)
-                        .put("role", "user")
-                        .put("isVerified", false)
-                        .put("verifyToken", token)
-                        .put("verifyTokenExpiry", expiry);
-
-                mongoClient.insert("users", user, insert -> {
-                    if (insert.succeeded()) {
-                        MailUtil.sendVerificationEmail( email, token);
-                        ctx.response().setStatusCode(201).end("Registered. Check your email.");
-                    } else {
-                        ctx.response().setStatusCode(500).end("Failed to register");
-                    }
-                });
+                PasswordUtil.hashPasswordAsync(password).onSuccess(hashed -> {
+                    String token = UUID.randomUUID().toString();
+                    long expiry = System.currentTimeMillis() + (1000 * 60 * 10); // 10 mins
+
+                    JsonObject user = new JsonObject()
+                            .put("name", name)
+                            .put("email", email)
+                            .put("password", hashed)
+                            .put("role", "user")
+                            .put("isVerified", false)
+                            .put("verifyToken", token)
+                            .put("verifyTokenExpiry", expiry);
+
+                    mongoClient.insert("users", user, insert -> {
+                        if (insert.succeeded()) {
+                            StatsCounters.userRegistered();
+                            MailUtil.sendVerificationEmail( email, token);
+                            ctx.response().setStatusCode(201).end("Registered. Check your email.");
+                        } else {
+                            ctx.response().setStatusCode(500).end("Failed to register");
+                        }
+                    });
+                }).onFailure(err -> failPasswordWork(ctx, err, "Failed to register"));
             }
         });
     }
@@ -171,10 +157,13 @@ public class AuthHandler {
                 String token = UUID.randomUUID().toString();  // Or JWT if preferred
 
                 // 3. Store token with expiry (in Redis or Mongo with TTL)
+                long now = System.currentTimeMillis();
                 JsonObject tokenData = new JsonObject()
                         .put("email", email)
                         .put("token", token)
-                        .put("createdAt", System.currentTimeMillis());
+                        .put("createdAt", now)
+                        // BSON date so the TTL index on expireAt can purge stale tokens
+                        .put("expireAt", new JsonObject().put("$date", Instant.ofEpochMilli(now + RESET_TOKEN_TTL_MS).toString()));
 
                 // TTL logic using MongoDB (if you don’t use Redis)
                 mongoClient.save("password_resets", tokenData, res -> {
@@ -211,25 +200,26 @@ public class AuthHandler {
             long createdAt = tokenEntry.getLong("createdAt");
             long now = System.currentTimeMillis();
 
-            if (now - createdAt > 10 * 60 * 1000) { // 10 minutes
+            if (now - createdAt > RESET_TOKEN_TTL_MS) { // 10 minutes
                 ctx.response().setStatusCode(410).end("Reset token expired");
                 return;
             }
 
             String email = tokenEntry.getString("email");
-            String hashed = PasswordUtil.hashPassword(newPassword);
 
-            JsonObject update = new JsonObject().put("$set", new JsonObject().put("password", hashed));
+            PasswordUtil.hashPasswordAsync(newPassword).onSuccess(hashed -> {
+                JsonObject update = new JsonObject().put("$set", new JsonObject().put("password", hashed));
 
-            mongoClient.updateCollection("users", new JsonObject().put("email", email), update, updateRes -> {
-                if (updateRes.succeeded()) {
-                    // Cleanup token
-                    mongoClient.removeDocument("password_resets", new JsonObject().put("token", token), cleanup -> {});
-                    ctx.response().end("Password reset successful");
-                } else {
-                    ctx.response().setStatusCode(500).end("Failed to update password");
-                }
-            });
+                mongoClient.updateCollection("users", new JsonObject().put("email", email), update, updateRes -> {
+                    if (updateRes.succeeded()) {
+                        // Cleanup token
+                        mongoClient.removeDocument("password_resets", new JsonObject().put("token", token), cleanup -> {});
+                        ctx.response().end("Password reset successful");
+                    } else {
+                        ctx.response().setStatusCode(500).end("Failed to update password");
+                    }
+                });
+            }).onFailure(err -> failPasswordWork(ctx, err, "Failed to update password"));
         });
     }
 
@@ -283,22 +273,34 @@ public class AuthHandler {
                     return;
                 }
 
-                boolean matched = PasswordUtil.verifyPassword(password, user.getString("password"));
-
-                if (matched) {
-                    String token = JwtUtil.createToken(user.getString("email"), user.getString("role"));
-                    ctx.response()
-                            .putHeader("Content-Type", "application/json")
-                            .end(new JsonObject().put("token", token).encode());
-                } else {
-                    ctx.response().setStatusCode(401).end("Wrong password");
-                }
+                PasswordUtil.verifyPasswordAsync(password, user.getString("password")).onSuccess(matched -> {
+                    if (matched) {
+                        String token = JwtUtil.createToken(user.getString("email"), user.getString("role"));
+                        ctx.response()
+                                .putHeader("Content-Type", "application/json")
+                                .end(new JsonObject().put("token", token).encode());
+                    } else {
+                        ctx.response().setStatusCode(401).end("Wrong password");
+                    }
+                }).onFailure(err -> failPasswordWork(ctx, err, "Login failed"));
             } else {
                 ctx.response().setStatusCode(401).end("Invalid email or password");
             }
         });
     }
 
+    // Hashing pool saturated -> 503 so clients back off instead of piling up
+    private void failPasswordWork(RoutingContext ctx, Throwable err, String message) {
+        if (PasswordUtil.isOverloaded(err)) {
+            ctx.response()
+                    .setStatusCode(503)
+                    .putHeader("Retry-After", "1")
+                    .end("Server busy, please try again");
+        } else {
+            ctx.response().setStatusCode(500).end(message);
+        }
+    }
+
     //Logout
     private void handleLogout(RoutingContext ctx) {
         String authHeader = ctx.request().getHeader("Authorization");
@@ -308,13 +310,11 @@ public class AuthHandler {
         }
 
         String token = authHeader.substring(7); // remove "Bearer "
-        long expiry = JwtUtil.getExpirationTime(token); // you need to implement this method
+        long expiry = ctx.get("tokenExpiry"); // set by AuthMiddleware
 
         long ttlSeconds = (expiry - System.currentTimeMillis()) / 1000;
 
-        RedisAPI redis = RedisUtil.getRedis();
-
-        redis.setex("blacklist:" + token, String.valueOf(ttlSeconds), "1")
+        TokenBlacklist.revoke(token, ttlSeconds)
                 .onSuccess(res -> ctx.response().end("Logged out successfully"))
                 .onFailure(err -> ctx.response().setStatusCode(500).end("Redis error: " + err.getMessage()));
     }
@@ -1,6 +1,10 @@
 package lostandfound.config.handlers;
 
+import io.vertx.core.Future;
 import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.http.HttpServerRequest;
+import io.vertx.core.http.HttpVersion;
 import io.vertx.core.json.JsonArray;
 import io.vertx.core.json.JsonObject;
 import io.vertx.ext.mongo.FindOptions;
@@ -8,9 +12,25 @@ import io.vertx.ext.mongo.MongoClient;
 import io.vertx.ext.web.Router;
 import io.vertx.ext.web.RoutingContext;
 import lostandfound.config.middleware.AuthMiddleware;
+import lostandfound.config.middleware.RateLimiter;
 import lostandfound.config.models.Item;
+import lostandfound.config.utils.ETags;
+import lostandfound.config.utils.ImageRenditions;
+import lostandfound.config.utils.ImageStore;
+import lostandfound.config.utils.ItemEvents;
+import lostandfound.config.utils.ItemQueryCache;
 import lostandfound.config.utils.MailUtil;
+import lostandfound.config.utils.MatchEngine;
+import lostandfound.config.utils.Pagination;
 import lostandfound.config.utils.RedisUtil;
+import lostandfound.config.utils.RequestBodies;
+import lostandfound.config.utils.SearchIndex;
+import lostandfound.config.utils.StatsCounters;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
 
 public class ItemHandler {
     private final MongoClient mongoClient;
@@ -23,47 +43,164 @@ public class ItemHandler {
 
     public void setupRoutes(Router router) {
         router.get("/api/items/mine").handler(AuthMiddleware.requireAuth()).handler(this::handleGetMyItems);
-        router.post("/api/items").handler(AuthMiddleware.requireAuth()).handler(this::handlePostItem);
+        // Auth runs first so an anonymous client can't push a body at all
+        router.post("/api/items").handler(AuthMiddleware.requireAuth())
+                .handler(RequestBodies.jsonOrMultipart(RequestBodies.ITEM_JSON_LIMIT))
+                .handler(this::handlePostItem);
         router.get("/api/items").handler(this::handleGetItems);
         router.get("/api/items/:id").handler(this::handleGetItemById);
+        router.get("/api/items/:id/matches").handler(this::handleGetMatches);
         router.patch("/api/items/:id/claim").handler(AuthMiddleware.requireAuth()).handler(this::handleMarkClaimed);
-        router.post("/api/items/:id/contact").handler(AuthMiddleware.requireAuth()).handler(this::handleContactPoster);
+        router.post("/api/items/:id/contact").handler(RateLimiter.byIp("contact")).handler(AuthMiddleware.requireAuth())
+                .handler(RateLimiter.byAccount("contact", RateLimiter::userEmail)).handler(RequestBodies.json())
+                .handler(this::handleContactPoster);
         router.get("/api/search").handler(this::handleGlobalSearch);
 
         router.delete("/api/items/:id").handler(AuthMiddleware.requireAuth(RedisUtil.getRedis())).handler(this::handleDeleteMyItem);
     }
 
     private void handlePostItem(RoutingContext ctx) {
+        if (RequestBodies.isMultipart(ctx)) {
+            handlePostItemMultipart(ctx);
+            return;
+        }
+
         JsonObject body = ctx.body().asJsonObject();
         String userEmail = ctx.data().get("userEmail").toString();
-
-        String title = body.getString("title");
-        String description = body.getString("description");
-        String category = body.getString("categoryId    "); // corrected field name
-        String status = body.getString("status");
-        String location= body.getString("location");
         String photoData = body.getString("photoData"); // ✅ New field
 
-        if (title == null || title.trim().isEmpty() ||
-                description == null || description.trim().isEmpty() ||
-                category == null || category.trim().isEmpty() ||
-                status == null || (!status.equals("lost") && !status.equals("found"))) {
+        if (!isValidItem(body)) {
             ctx.response().setStatusCode(400).end("Title, description, category, and valid status (lost or found) are required");
             return;
         }
 
         JsonObject itemDoc = Item.toMongoDoc(body, userEmail);// photoUrl = null
-        if (photoData != null && !photoData.trim().isEmpty()) {
-            itemDoc.put("photoData", photoData); // ✅ Save base64 string in DB
+        if (photoData == null || photoData.trim().isEmpty()) {
+            saveItemToMongo(ctx, itemDoc);
+            return;
         }
 
-        saveItemToMongo(ctx, itemDoc);
+        // ✅ Decode once and keep only a reference to the stored file in the document
+        ImageStore.storeBase64(vertx, photoData, RequestBodies.MAX_IMAGE_BYTES)
+                .onSuccess(image -> saveItemToMongo(ctx, itemDoc.mergeIn(image.toItemFields())))
+                .onFailure(err -> failImage(ctx, err));
 
     }
 
+    // multipart/form-data with the item fields and an optional "photo" file part.
+    // The file is streamed to a temp file while it arrives and only moved into the store once the
+    // whole request is in and the fields are valid.
+    private void handlePostItemMultipart(RoutingContext ctx) {
+        HttpServerRequest request = ctx.request();
+        String userEmail = ctx.get("userEmail");
+        List<Future<ImageStore.StagedImage>> uploads = new ArrayList<>();
+
+        request.setExpectMultipart(true);
+        request.uploadHandler(upload -> {
+            if (!"photo".equals(upload.name()) || !uploads.isEmpty()) {
+                uploads.add(Future.failedFuture(new IllegalArgumentException("Only one file part, named photo, is accepted")));
+                rejectUpload(ctx, 400, "Only one file part, named photo, is accepted");
+                return;
+            }
+            uploads.add(ImageStore.stage(vertx, upload, RequestBodies.MAX_IMAGE_BYTES)
+                    .onFailure(err -> {
+                        if (err instanceof ImageStore.TooLargeException) {
+                            rejectUpload(ctx, 413, err.getMessage());
+                        } else if (err instanceof IllegalArgumentException) {
+                            rejectUpload(ctx, 415, err.getMessage());
+                        } else {
+                            System.err.println("Failed to receive upload: " + err.getMessage());
+                            rejectUpload(ctx, 500, "Error saving image");
+                        }
+                    }));
+        });
+        request.exceptionHandler(err -> System.err.println("Upload request failed: " + err.getMessage()));
+
+        request.endHandler(v -> {
+            Future<ImageStore.StagedImage> staged = uploads.isEmpty() ? Future.succeededFuture() : uploads.get(0);
+            staged.onComplete(res -> {
+                if (ctx.response().ended() || res.failed()) {
+                    if (res.succeeded() && res.result() != null) {
+                        ImageStore.discard(vertx, res.result());
+                    }
+                    return; // already answered by rejectUpload
+                }
+
+                JsonObject body = new JsonObject();
+                request.formAttributes().forEach(entry -> body.put(entry.getKey(), entry.getValue()));
+                ImageStore.StagedImage image = res.result();
+
+                if (!isValidItem(body)) {
+                    if (image != null) {
+                        ImageStore.discard(vertx, image);
+                    }
+                    ctx.response().setStatusCode(400).end("Title, description, category, and valid status (lost or found) are required");
+                    return;
+                }
+
+                JsonObject itemDoc = Item.toMongoDoc(body, userEmail);
+                if (image == null) {
+                    saveItemToMongo(ctx, itemDoc);
+                    return;
+                }
+                ImageStore.commit(vertx, image)
+                        .onSuccess(stored -> saveItemToMongo(ctx, itemDoc.mergeIn(stored.toItemFields())))
+                        .onFailure(err -> failImage(ctx, err));
+            });
+        });
+    }
+
+    private boolean isValidItem(JsonObject body) {
+        String title = body.getString("title");
+        String description = body.getString("description");
+        String category = body.getString("categoryId");
+        String status = body.getString("status");
+
+        return !(title == null || title.trim().isEmpty() ||
+                description == null || description.trim().isEmpty() ||
+                category == null || category.trim().isEmpty() ||
+                status == null || (!status.equals("lost") && !status.equals("found")));
+    }
+
+    private void failImage(RoutingContext ctx, Throwable err) {
+        if (err instanceof ImageStore.TooLargeException) {
+            ctx.response().setStatusCode(413).end(err.getMessage());
+        } else if (err instanceof IllegalArgumentException) {
+            ctx.response().setStatusCode(400).end(err.getMessage());
+        } else {
+            System.err.println("Failed to store image: " + err.getMessage());
+            ctx.response().setStatusCode(500).end("Error saving image");
+        }
+    }
+
+    // Answers right away and drops the connection so the client stops sending the rest of the body
+    private void rejectUpload(RoutingContext ctx, int status, String message) {
+        if (ctx.response().ended()) {
+            return;
+        }
+        ctx.response()
+                .setStatusCode(status)
+                .putHeader("Connection", "close")
+                .end(message)
+                .onComplete(v -> {
+                    if (ctx.request().version() != HttpVersion.HTTP_2) {
+                        ctx.request().connection().close();
+                    }
+                });
+    }
+
     private void saveItemToMongo(RoutingContext ctx, JsonObject itemDoc) {
         mongoClient.insert("items", itemDoc, insertRes -> {
             if (insertRes.succeeded()) {
+                if (insertRes.result() != null) {
+                    itemDoc.put("_id", insertRes.result());
+                }
+                SearchIndex.put(itemDoc);
+                ItemQueryCache.invalidate(null, itemDoc);
+                StatsCounters.itemPosted(itemDoc);
+                ItemEvents.publish(vertx, ItemEvents.CREATED, itemDoc);
+                ImageRenditions.schedule(vertx, mongoClient, itemDoc); // thumbUrl/mediumUrl follow in the background
+                MatchEngine.schedule(vertx, mongoClient, itemDoc);
                 ctx.response().setStatusCode(201).end("Item posted successfully");
             } else {
                 ctx.response().setStatusCode(500).end("Error saving item");
@@ -74,7 +211,6 @@ public class ItemHandler {
 
     private void handleGetItems(RoutingContext ctx) {
         JsonObject query = new JsonObject();
-        FindOptions options = new FindOptions();
 
         String status = ctx.request().getParam("status");
         String categoryId = ctx.request().getParam("categoryId");
@@ -92,32 +228,93 @@ public class ItemHandler {
         }
 
 
-        JsonObject sortObj = new JsonObject();
+        JsonObject sortObj = Pagination.sort(null, -1); // newest first
         if (sortBy != null) {
             switch (sortBy) {
-                case "date":
-                    sortObj.put("createdAt", -1); // newest first
-                    break;
                 case "status":
-                    sortObj.put("status", 1); // "found" before "lost"
+                    sortObj = Pagination.sort("status", 1); // "found" before "lost"
                     break;
                 case "category":
-                    sortObj.put("category", 1); // sort alphabetically by category
+                    sortObj = Pagination.sort("categoryId", 1); // sort alphabetically by category
                     break;
             }
         }
-        options.setSort(sortObj);
+
+        // Same filter, sort, page and projection -> same cache entry
+        ItemQueryCache.Filter filter = new ItemQueryCache.Filter(status, categoryId, location,
+                isClaimed == null ? null : Boolean.parseBoolean(isClaimed), title);
+        String cacheKey = new JsonArray()
+                .add(status).add(categoryId).add(location).add(filter.isClaimed()).add(title)
+                .add(sortObj.fieldNames().iterator().next())
+                .add(ctx.request().getParam("limit"))
+                .add(ctx.request().getParam("cursor"))
+                .add(ctx.request().getParam("fields"))
+                .encode();
+
+        ItemQueryCache.Page cached = ItemQueryCache.get(cacheKey);
+        if (cached != null) {
+            sendPage(ctx, cached);
+            return;
+        }
+
+        long cacheVersion = ItemQueryCache.version();
+        findPage(ctx, query, sortObj, "Failed to fetch items",
+                page -> ItemQueryCache.put(cacheKey, filter, page, cacheVersion));
+    }
+
+    // One keyset page: ?limit= (default 20, max 100), ?cursor= from the previous X-Next-Cursor header, ?fields=
+    private void findPage(RoutingContext ctx, JsonObject query, JsonObject sort, String errorMessage,
+                          Consumer<ItemQueryCache.Page> onPage) {
+        int limit;
+        try {
+            limit = Pagination.parseLimit(ctx.request().getParam("limit"));
+            String cursor = ctx.request().getParam("cursor");
+            if (cursor != null && !cursor.isEmpty()) {
+                query.put("$or", Pagination.afterCursor(cursor, sort).getJsonArray("$or"));
+            }
+        } catch (IllegalArgumentException e) {
+            ctx.response().setStatusCode(400).end(e.getMessage());
+            return;
+        }
+
+        FindOptions options = new FindOptions()
+                .setSort(sort)
+                .setLimit(limit + 1) // one extra tells us whether another page exists
+                .setFields(Pagination.projection(ctx.request().getParam("fields"), sort));
 
         mongoClient.findWithOptions("items", query, options, res -> {
+            if (res.failed()) {
+                ctx.response().setStatusCode(500).end(errorMessage);
+                return;
+            }
 
-            if (res.succeeded()) {
-                ctx.response().putHeader("Content-Type", "application/json").end(new JsonArray(res.result()).encode());
-            } else {
-                ctx.response().setStatusCode(500).end("Failed to fetch items");
+            List<JsonObject> items = res.result();
+            String nextCursor = null;
+            if (items.size() > limit) {
+                items = items.subList(0, limit);
+                nextCursor = Pagination.encodeCursor(sort, items.get(limit - 1));
             }
+
+            Buffer body = new JsonArray(items).toBuffer();
+            ItemQueryCache.Page page = new ItemQueryCache.Page(body, ETags.of(body), nextCursor);
+            onPage.accept(page);
+            sendPage(ctx, page);
         });
     }
 
+    private void sendPage(RoutingContext ctx, ItemQueryCache.Page page) {
+        ctx.response().putHeader("ETag", page.etag());
+        if (page.nextCursor() != null) {
+            ctx.response().putHeader("X-Next-Cursor", page.nextCursor());
+        }
+
+        if (ETags.matches(ctx.request().getHeader("If-None-Match"), page.etag())) {
+            ctx.response().setStatusCode(304).end();
+        } else {
+            ctx.response().putHeader("Content-Type", "application/json").end(page.body());
+        }
+    }
+
     private void handleGetItemById(RoutingContext ctx) {
         String itemId = ctx.pathParam("id");
 
@@ -131,6 +328,32 @@ public class ItemHandler {
         });
     }
 
+    // Candidate items of the opposite status found by MatchEngine, best first
+    private void handleGetMatches(RoutingContext ctx) {
+        int limit;
+        try {
+            limit = Pagination.parseLimit(ctx.request().getParam("limit"));
+        } catch (IllegalArgumentException e) {
+            ctx.response().setStatusCode(400).end(e.getMessage());
+            return;
+        }
+
+        JsonObject query = new JsonObject().put("_id", ctx.pathParam("id"));
+        JsonObject fields = new JsonObject().put("status", 1);
+        mongoClient.findOne("items", query, fields)
+                .compose(item -> item == null
+                        ? Future.succeededFuture((JsonArray) null)
+                        : MatchEngine.matchesFor(mongoClient, item, limit))
+                .onSuccess(matches -> {
+                    if (matches == null) {
+                        ctx.response().setStatusCode(404).end("Item not found");
+                    } else {
+                        ctx.response().putHeader("Content-Type", "application/json").end(matches.encode());
+                    }
+                })
+                .onFailure(err -> ctx.response().setStatusCode(500).end("Failed to load matches"));
+    }
+
     private void handleMarkClaimed(RoutingContext ctx) {
         String itemId = ctx.pathParam("id");
         String userEmail = ctx.data().get("userEmail").toString();
@@ -152,14 +375,17 @@ public class ItemHandler {
                     return;
                 }
 
-                JsonObject update = new JsonObject()
-                        .put("$set", new JsonObject()
-                                .put("isClaimed", true)
-                                .put("claimedAt", System.currentTimeMillis())
-                        );
+                JsonObject changes = new JsonObject()
+                        .put("isClaimed", true)
+                        .put("claimedAt", System.currentTimeMillis());
+                JsonObject update = new JsonObject().put("$set", changes);
 
                 mongoClient.updateCollection("items", query, update, updateRes -> {
                     if (updateRes.succeeded()) {
+                        SearchIndex.update(itemId, changes);
+                        ItemQueryCache.invalidate(item, item.copy().mergeIn(changes));
+                        StatsCounters.itemClaimed(item);
+                        ItemEvents.publish(vertx, ItemEvents.CLAIMED, item.copy().mergeIn(changes));
                         ctx.response().end("Item marked as claimed");
                     } else {
                         ctx.response().setStatusCode(500).end("Failed to update item");
@@ -228,13 +454,34 @@ public class ItemHandler {
             return;
         }
 
+        int limit;
+        try {
+            limit = Pagination.parseLimit(ctx.request().getParam("limit"));
+        } catch (IllegalArgumentException e) {
+            ctx.response().setStatusCode(400).end(e.getMessage());
+            return;
+        }
+
+        if (SearchIndex.isReady()) {
+            ctx.response()
+                    .putHeader("Content-Type", "application/json")
+                    .end(new JsonArray(SearchIndex.search(keyword, limit)).encode());
+            return;
+        }
+
+        // Index still loading right after startup: fall back to a (literal) regex query
+        String pattern = Pattern.quote(keyword);
         JsonObject query = new JsonObject().put("$or", new JsonArray()
-                .add(new JsonObject().put("title", new JsonObject().put("$regex", keyword).put("$options", "i")))
-                .add(new JsonObject().put("description", new JsonObject().put("$regex", keyword).put("$options", "i")))
-                .add(new JsonObject().put("category", new JsonObject().put("$regex", keyword).put("$options", "i")))
+                .add(new JsonObject().put("title", new JsonObject().put("$regex", pattern).put("$options", "i")))
+                .add(new JsonObject().put("description", new JsonObject().put("$regex", pattern).put("$options", "i")))
+                .add(new JsonObject().put("location", new JsonObject().put("$regex", pattern).put("$options", "i")))
         );
+        FindOptions options = new FindOptions()
+                .setLimit(limit)
+                .setSort(new JsonObject().put("createdAt", -1))
+                .setFields(Pagination.projection(null, new JsonObject()));
 
-        mongoClient.find("items", query, res -> {
+        mongoClient.findWithOptions("items", query, options, res -> {
             if (res.succeeded()) {
                 ctx.response()
                         .putHeader("Content-Type", "application/json")
@@ -254,15 +501,7 @@ public class ItemHandler {
 
         JsonObject query = new JsonObject().put("postedBy", email);
 
-        mongoClient.find("items", query, res -> {
-            if (res.succeeded()) {
-                ctx.response()
-                        .putHeader("Content-Type", "application/json")
-                        .end(res.result().toString());
-            } else {
-                ctx.response().setStatusCode(500).end("Failed to fetch items");
-            }
-        });
+        findPage(ctx, query, Pagination.sort(null, -1), "Failed to fetch items", page -> {});
     }
     private void handleDeleteMyItem(RoutingContext ctx) {
         String id = ctx.pathParam("id");
@@ -281,6 +520,12 @@ public class ItemHandler {
         mongoClient.findOneAndDelete("items", query, res -> {
             if (res.succeeded()) {
                 if (res.result() != null) {
+                    SearchIndex.remove(id);
+                    ItemQueryCache.invalidate(res.result(), null);
+                    StatsCounters.itemDeleted(res.result());
+                    ItemEvents.publish(vertx, ItemEvents.DELETED, res.result());
+                    MatchEngine.forget(mongoClient, new JsonArray().add(id))
+                            .onFailure(err -> System.err.println("Failed to remove matches for item " + id + ": " + err.getMessage()));
                     ctx.response().setStatusCode(200).end("Item deleted successfully");
                 } else {
                     ctx.response().setStatusCode(403).end("You can only delete your own items");
@@ -0,0 +1,166 @@
+package lostandfound.config.handlers;
+
+import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.http.HttpHeaders;
+import io.vertx.core.http.HttpServerResponse;
+import io.vertx.core.http.HttpVersion;
+import io.vertx.core.json.JsonObject;
+import io.vertx.ext.web.Router;
+import io.vertx.ext.web.RoutingContext;
+import lostandfound.config.AppConfig;
+import lostandfound.config.utils.ItemEvents;
+import lostandfound.config.utils.Metrics;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// GET /api/items/stream?status=&categoryId= — live item changes as Server-Sent Events, so list pages
+// stop polling /api/items. Each handler instance (one per verticle) holds one event bus consumer and
+// one heartbeat timer and fans out to its own connections, so an idle connection costs only its
+// socket and a small Subscriber. Reconnects resume from Last-Event-ID (EventSource sends it on its
+// own); when that's no longer possible the client gets a "reset" event and should reload the list.
+public class ItemStreamHandler {
+    private static final int MAX_CONNECTIONS = AppConfig.getInt("SSE_MAX_CONNECTIONS", 10000);
+    private static final long HEARTBEAT_MS = AppConfig.getLong("SSE_HEARTBEAT_SECONDS", 20) * 1000;
+    private static final int WRITE_QUEUE_BYTES = AppConfig.getInt("SSE_WRITE_QUEUE_BYTES", 64 * 1024);
+    private static final long RETRY_MS = 5000;
+    private static final Buffer HEARTBEAT = Buffer.buffer(": ping\n\n");
+
+    private static final AtomicInteger open = new AtomicInteger();
+
+    static {
+        Metrics.gauge("sse_connections", "Open live item feed connections", open::get);
+    }
+
+    // Only touched on this instance's event loop
+    private final Set<Subscriber> subscribers = new LinkedHashSet<>();
+    private final Vertx vertx;
+
+    public ItemStreamHandler(Vertx vertx) {
+        this.vertx = vertx;
+    }
+
+    // Has to go in before ItemHandler, or /api/items/:id claims "stream"
+    public void setupRoutes(Router router) {
+        router.get("/api/items/stream").handler(this::handleStream);
+
+        vertx.eventBus().<JsonObject>consumer(ItemEvents.ADDRESS, message -> broadcast(message.body()));
+        vertx.setPeriodic(HEARTBEAT_MS, id -> heartbeat());
+    }
+
+    private void handleStream(RoutingContext ctx) {
+        if (open.incrementAndGet() > MAX_CONNECTIONS) {
+            open.decrementAndGet();
+            ctx.response().setStatusCode(503)
+                    .putHeader("Retry-After", String.valueOf(RETRY_MS / 1000))
+                    .putHeader("Content-Type", "application/json")
+                    .end(new JsonObject().put("error", "Too many live connections, try again shortly").encode());
+            return;
+        }
+
+        HttpServerResponse response = ctx.response();
+        response.putHeader(HttpHeaders.CONTENT_TYPE, "text/event-stream; charset=utf-8")
+                .putHeader(HttpHeaders.CACHE_CONTROL, "no-cache")
+                .putHeader(HttpHeaders.CONTENT_ENCODING, HttpHeaders.IDENTITY) // gzip would hold events back
+                .putHeader("X-Accel-Buffering", "no");
+        if (ctx.request().version() != HttpVersion.HTTP_2) {
+            response.setChunked(true);
+        }
+        response.setWriteQueueMaxSize(WRITE_QUEUE_BYTES);
+
+        Subscriber subscriber = new Subscriber(response, ctx.queryParams().get("status"),
+                ctx.queryParams().get("categoryId"));
+        response.closeHandler(v -> unsubscribe(subscriber));
+        response.exceptionHandler(err -> unsubscribe(subscriber));
+
+        StringBuilder opening = new StringBuilder("retry: ").append(RETRY_MS).append("\n\n");
+        String lastEventId = ctx.request().getHeader("Last-Event-ID");
+        if (lastEventId == null) {
+            lastEventId = ctx.queryParams().get("lastEventId");
+        }
+        // Everything up to replay.sequence() is replayed here, everything after arrives through broadcast
+        ItemEvents.Replay replay = ItemEvents.since(lastEventId);
+        subscriber.lastSeq = replay.sequence();
+        if (replay.events() == null) {
+            opening.append("event: reset\ndata: {}\n\n");
+        } else {
+            for (JsonObject event : replay.events()) {
+                if (subscriber.wants(event)) {
+                    opening.append(frame(event));
+                }
+            }
+        }
+
+        subscribers.add(subscriber);
+        response.write(opening.toString());
+    }
+
+    private void broadcast(JsonObject event) {
+        long seq = event.getLong("seq");
+        Buffer frame = null;
+        for (Subscriber subscriber : new ArrayList<>(subscribers)) {
+            if (seq <= subscriber.lastSeq) {
+                continue; // already sent in the replay
+            }
+            subscriber.lastSeq = seq;
+            if (!subscriber.wants(event)) {
+                continue;
+            }
+            if (frame == null) {
+                frame = Buffer.buffer(frame(event)); // encoded once for every matching connection
+            }
+            send(subscriber, frame);
+        }
+    }
+
+    private void heartbeat() {
+        for (Subscriber subscriber : new ArrayList<>(subscribers)) {
+            send(subscriber, HEARTBEAT);
+        }
+    }
+
+    // A client that can't keep up is dropped rather than buffered; it reconnects and resumes
+    private void send(Subscriber subscriber, Buffer data) {
+        if (subscriber.response.writeQueueFull()) {
+            Metrics.increment("sse_slow_disconnects_total", "Live feed connections dropped for not reading");
+            unsubscribe(subscriber);
+            subscriber.response.reset(); // the stream only; other h2 streams on the connection stay up
+            return;
+        }
+        subscriber.response.write(data);
+    }
+
+    private void unsubscribe(Subscriber subscriber) {
+        if (subscribers.remove(subscriber)) {
+            open.decrementAndGet();
+        }
+    }
+
+    private static String frame(JsonObject event) {
+        return "id: " + event.getString("id") + "\nevent: " + event.getString("type")
+                + "\ndata: " + event.getJsonObject("item").encode() + "\n\n";
+    }
+
+    private static final class Subscriber {
+        final HttpServerResponse response;
+        final String status;
+        final String categoryId;
+        long lastSeq;
+
+        Subscriber(HttpServerResponse response, String status, String categoryId) {
+            this.response = response;
+            this.status = status;
+            this.categoryId = categoryId;
+        }
+
+        // Deletes only carry _id, status and categoryId, which is all the filters need
+        boolean wants(JsonObject event) {
+            JsonObject item = event.getJsonObject("item");
+            return (status == null || status.equals(item.getString("status")))
+                    && (categoryId == null || categoryId.equals(item.getString("categoryId")));
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package lostandfound.config.handlers;
+
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
+import io.vertx.core.http.HttpHeaders;
+import io.vertx.core.http.HttpServerResponse;
+import io.vertx.ext.web.Router;
+import io.vertx.ext.web.RoutingContext;
+import io.vertx.ext.web.handler.StaticHandler;
+import lostandfound.config.utils.ETags;
+import lostandfound.config.utils.ImageCache;
+import lostandfound.config.utils.ImageStore;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// GET /uploads/<xx>/<sha256>[_thumb|_medium].<ext>. A name never changes content, so responses are cached as immutable,
+// an If-None-Match with its ETag gets a 304 without touching the disk, small files come from ImageCache and the rest
+// (and all range requests) go to StaticHandler, which streams them from disk and supports byte ranges.
+// The stored formats are already compressed, so responses are sent with identity encoding. That doesn't
+// bring back sendfile though: Vert.x only uses zero-copy when the server has HTTP_COMPRESSION off.
+public class UploadsHandler {
+    private static final String CACHE_CONTROL = "public, max-age=31536000, immutable";
+    private static final Pattern IMAGE_PATH = Pattern.compile("([0-9a-f]{2})/([0-9a-f]{64}(?:_thumb|_medium)?)\\.(jpg|png|gif|webp)");
+    private static final Map<String, String> CONTENT_TYPES = Map.of(
+            "jpg", "image/jpeg",
+            "png", "image/png",
+            "gif", "image/gif",
+            "webp", "image/webp");
+
+    private final Vertx vertx;
+
+    public UploadsHandler(Vertx vertx) {
+        this.vertx = vertx;
+    }
+
+    public void setupRoutes(Router router) {
+        router.get(ImageStore.URL_PREFIX + "*").handler(this::handleImage);
+        router.head(ImageStore.URL_PREFIX + "*").handler(this::handleImage);
+
+        router.route(ImageStore.URL_PREFIX + "*").handler(StaticHandler.create(ImageStore.UPLOADS_DIR)
+                .setIncludeHidden(false) // uploads/.tmp holds in-flight writes
+                .setDirectoryListing(false)
+                .setEnableRangeSupport(true)
+                .setCachingEnabled(true)
+                .setMaxAgeSeconds(365L * 24 * 60 * 60) // public, immutable, max-age=1y
+                .skipCompressionForMediaTypes(Set.copyOf(CONTENT_TYPES.values())));
+    }
+
+    private void handleImage(RoutingContext ctx) {
+        String relative = ctx.normalizedPath().substring(ImageStore.URL_PREFIX.length());
+        Matcher matcher = IMAGE_PATH.matcher(relative);
+        if (!matcher.matches() || !matcher.group(2).startsWith(matcher.group(1))) {
+            ctx.response().setStatusCode(404).end();
+            return;
+        }
+        String etag = "\"" + matcher.group(2) + "\"";
+        String contentType = CONTENT_TYPES.get(matcher.group(3));
+
+        // The ETag is the content hash, so a match means the client has exactly this file
+        if (ETags.matches(ctx.request().getHeader(HttpHeaders.IF_NONE_MATCH), etag)) {
+            cacheHeaders(ctx.response(), etag, contentType).setStatusCode(304).end();
+            return;
+        }
+        if (ctx.request().getHeader("Range") != null) {
+            ctx.next();
+            return;
+        }
+
+        String path = ImageStore.UPLOADS_DIR + "/" + relative;
+        ImageCache.Entry cached = ImageCache.get(path);
+        if (cached != null) {
+            serve(ctx, cached, etag, contentType);
+            return;
+        }
+
+        vertx.fileSystem().props(path)
+                .compose(props -> props.size() > ImageCache.MAX_FILE_BYTES
+                        ? Future.succeededFuture(new ImageCache.Entry(null))
+                        : vertx.fileSystem().readFile(path).map(ImageCache.Entry::new))
+                .onSuccess(entry -> {
+                    ImageCache.put(path, entry.body());
+                    serve(ctx, entry, etag, contentType);
+                })
+                .onFailure(err -> ctx.response().setStatusCode(404).end());
+    }
+
+    private void serve(RoutingContext ctx, ImageCache.Entry entry, String etag, String contentType) {
+        if (entry.body() == null) {
+            ctx.next(); // large file: streamed by StaticHandler
+            return;
+        }
+        cacheHeaders(ctx.response(), etag, contentType)
+                .putHeader(HttpHeaders.ACCEPT_RANGES, "bytes")
+                .end(entry.body());
+    }
+
+    private static HttpServerResponse cacheHeaders(HttpServerResponse response, String etag, String contentType) {
+        return response
+                .putHeader(HttpHeaders.CACHE_CONTROL, CACHE_CONTROL)
+                .putHeader(HttpHeaders.ETAG, etag)
+                .putHeader(HttpHeaders.CONTENT_TYPE, contentType)
+                .putHeader(HttpHeaders.CONTENT_ENCODING, HttpHeaders.IDENTITY);
+    }
+}
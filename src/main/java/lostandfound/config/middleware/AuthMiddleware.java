@@ -1,6 +1,8 @@
 package lostandfound.config.middleware;
 import io.vertx.ext.web.RoutingContext;
 import lostandfound.config.utils.JwtUtil;
+import lostandfound.config.utils.TokenBlacklist;
+import lostandfound.config.utils.VerifiedToken;
 import io.vertx.core.Handler;
 import io.vertx.redis.client.RedisAPI;
 
@@ -9,102 +11,49 @@ import io.vertx.redis.client.RedisAPI;
 
 public class AuthMiddleware {
     public static void handle(RoutingContext ctx) {
-        String authHeader = ctx.request().getHeader("Authorization");
-
-        if (authHeader == null || !authHeader.startsWith("Bearer ")) {
-            ctx.response().setStatusCode(401).end("Missing or invalid token");
-            return;
-        }
-
-        String token = authHeader.substring(7); // remove "Bearer "
-
-        if (!JwtUtil.validateToken(token)) {
-            ctx.response().setStatusCode(401).end("Invalid or expired token");
+        VerifiedToken verified = authenticate(ctx);
+        if (verified == null) {
             return;
         }
 
-        // Extract data and attach to context
-        String email = JwtUtil.getEmailFromToken(token);
-        String role = JwtUtil.getRoleFromToken(token);
-
-        ctx.put("userEmail", email);  // ✅ Fix here
-        ctx.put("role", role);
-
+        attach(ctx, verified);
         ctx.next(); // Pass to next handler
     }
 
     public static Handler<RoutingContext> requireAdmin() {
         return ctx -> {
-            String authHeader = ctx.request().getHeader("Authorization");
-
-            if (authHeader == null || !authHeader.startsWith("Bearer ")) {
-                ctx.response().setStatusCode(401).end("Missing or invalid token");
+            VerifiedToken verified = authenticate(ctx);
+            if (verified == null) {
                 return;
             }
 
-            String token = authHeader.substring(7);
-
-            if (!JwtUtil.validateToken(token)) {
-                ctx.response().setStatusCode(401).end("Invalid or expired token");
-                return;
-            }
-
-            String email = JwtUtil.getEmailFromToken(token);
-            String role = JwtUtil.getRoleFromToken(token);
-
-            if (!"admin".equals(role)) {
+            if (!"admin".equals(verified.role())) {
                 ctx.response().setStatusCode(403).end("Admin only access");
                 return;
             }
 
-            ctx.put("userEmail", email);
-            ctx.put("role", role);
-
+            attach(ctx, verified);
             ctx.next(); // ✅ continue to the actual handler
         };
     }
 
 
     public static Handler<RoutingContext> requireAuth() {
-        return ctx -> {
-            String authHeader = ctx.request().getHeader("Authorization");
-
-            if (authHeader == null || !authHeader.startsWith("Bearer ")) {
-                ctx.response().setStatusCode(401).end("Missing or invalid token");
-                return;
-            }
-
-            String token = authHeader.substring(7); // remove "Bearer "
-
-            if (!JwtUtil.validateToken(token)) {
-                ctx.response().setStatusCode(401).end("Invalid or expired token");
-                return;
-            }
-
-            // Extract data and attach to context
-            String email = JwtUtil.getEmailFromToken(token);
-            String role = JwtUtil.getRoleFromToken(token);
-
-            ctx.put("userEmail", email); // match this with how you're accessing in handlers
-            ctx.put("role", role);
-
-            ctx.next(); // continue to next handler
-        };
+        return AuthMiddleware::handle;
     }
 
     public static Handler<RoutingContext> requireAuth(RedisAPI redis) {
         return ctx -> {
-            String authHeader = ctx.request().getHeader("Authorization");
-
-            if (authHeader == null || !authHeader.startsWith("Bearer ")) {
-                ctx.response().setStatusCode(401).end("Missing or invalid token");
+            VerifiedToken verified = authenticate(ctx);
+            if (verified == null) {
                 return;
             }
 
-            String token = authHeader.substring(7);
-
-            if (!JwtUtil.validateToken(token)) {
-                ctx.response().setStatusCode(401).end("Invalid or expired token");
+            String token = bearerToken(ctx);
+            // The local filter has no false negatives, so most requests skip Redis entirely
+            if (!TokenBlacklist.mightBeRevoked(token)) {
+                attach(ctx, verified);
+                ctx.next();
                 return;
             }
 
@@ -112,14 +61,42 @@ public class AuthMiddleware {
                 if (res.succeeded() && res.result() != null) {
                     ctx.response().setStatusCode(401).end("Token is blacklisted. Please login again.");
                 } else {
-                    String email = JwtUtil.getEmailFromToken(token);
-                    String role = JwtUtil.getRoleFromToken(token);
-                    ctx.put("userEmail", email);
-                    ctx.put("role", role);
+                    attach(ctx, verified);
                     ctx.next();
                 }
             });
         };
     }
 
+    // Returns the verified claims, or ends the request with 401 and returns null
+    private static VerifiedToken authenticate(RoutingContext ctx) {
+        String token = bearerToken(ctx);
+
+        if (token == null) {
+            ctx.response().setStatusCode(401).end("Missing or invalid token");
+            return null;
+        }
+
+        VerifiedToken verified = JwtUtil.verify(token);
+        if (verified == null) {
+            ctx.response().setStatusCode(401).end("Invalid or expired token");
+        }
+        return verified;
+    }
+
+    private static String bearerToken(RoutingContext ctx) {
+        String authHeader = ctx.request().getHeader("Authorization");
+
+        if (authHeader == null || !authHeader.startsWith("Bearer ")) {
+            return null;
+        }
+        return authHeader.substring(7); // remove "Bearer "
+    }
+
+    private static void attach(RoutingContext ctx, VerifiedToken verified) {
+        ctx.put("userEmail", verified.email()); // match this with how you're accessing in handlers
+        ctx.put("role", verified.role());
+        ctx.put("tokenExpiry", verified.expiresAt());
+    }
+
 }
@@ -0,0 +1,29 @@
+package lostandfound.config.middleware;
+
+import io.vertx.core.http.HttpHeaders;
+import io.vertx.core.http.HttpServerResponse;
+import io.vertx.ext.web.RoutingContext;
+import lostandfound.config.AppConfig;
+
+// Vert.x compresses every response once compression is on. Small bodies gain nothing from gzip,
+// so below HTTP_COMPRESSION_MIN_BYTES the response is marked identity, which Vert.x leaves alone.
+// Streamed (chunked) responses have no length yet and are always compressed.
+public class CompressionThreshold {
+    private static final long MIN_BYTES = AppConfig.getLong("HTTP_COMPRESSION_MIN_BYTES", 1024);
+
+    public static void handle(RoutingContext ctx) {
+        ctx.addHeadersEndHandler(v -> {
+            HttpServerResponse response = ctx.response();
+            if (response.headers().contains(HttpHeaders.CONTENT_ENCODING)) {
+                return; // images and anything else that chose its own encoding
+            }
+            String length = response.headers().get(HttpHeaders.CONTENT_LENGTH);
+            if (length != null && Long.parseLong(length) < MIN_BYTES) {
+                response.putHeader(HttpHeaders.CONTENT_ENCODING, HttpHeaders.IDENTITY);
+            } else {
+                response.headers().add(HttpHeaders.VARY, "Accept-Encoding");
+            }
+        });
+        ctx.next();
+    }
+}
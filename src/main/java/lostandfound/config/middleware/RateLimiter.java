@@ -0,0 +1,260 @@
+package lostandfound.config.middleware;
+
+import io.vertx.core.Handler;
+import io.vertx.core.Vertx;
+import io.vertx.core.net.SocketAddress;
+import io.vertx.ext.web.RoutingContext;
+import io.vertx.redis.client.Command;
+import io.vertx.redis.client.Request;
+import io.vertx.redis.client.Response;
+import lostandfound.config.AppConfig;
+import lostandfound.config.utils.Metrics;
+import lostandfound.config.utils.RedisUtil;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+// Token buckets per IP and per account for the endpoints that cost BCrypt work or send mail.
+// Buckets live in memory, so a check does no I/O and rejects before the body is parsed or Mongo is
+// touched. Every RATE_LIMIT_SYNC_MS each node adds what it spent to a shared Redis counter per bucket
+// and takes off what the other nodes spent, so spreading requests over nodes doesn't multiply the
+// budget (give or take one sync). If Redis is down the limits still hold per node.
+// Limits are RATE_LIMIT_<ROUTE>_<IP|ACCOUNT> = "<burst>/<per minute>"; a burst of 0 turns one off.
+public class RateLimiter {
+    private static final boolean ENABLED = AppConfig.getBoolean("RATE_LIMITS", true);
+    private static final long SYNC_MS = AppConfig.getLong("RATE_LIMIT_SYNC_MS", 1000);
+    private static final String KEY_PREFIX = "ratelimit:";
+
+    private static final Map<String, String> DEFAULTS = Map.of(
+            "LOGIN_IP", "20/10",
+            "LOGIN_ACCOUNT", "5/2",
+            "REGISTER_IP", "5/1",
+            "REGISTER_ACCOUNT", "3/0.5",
+            "FORGOT_PASSWORD_IP", "5/1",
+            "FORGOT_PASSWORD_ACCOUNT", "3/0.2",
+            "CONTACT_IP", "20/5",
+            "CONTACT_ACCOUNT", "10/2");
+
+    record Limit(double capacity, double tokensPerNano) {
+        static Limit perMinute(double capacity, double perMinute) {
+            return new Limit(capacity, perMinute / TimeUnit.MINUTES.toNanos(1));
+        }
+
+        long fullRefillNanos() {
+            return (long) (capacity / tokensPerNano);
+        }
+    }
+
+    private static final Map<String, Bucket> buckets = new ConcurrentHashMap<>();
+    private static boolean started;
+    private static boolean syncFailing;
+
+    // Safe to call more than once; only the first call starts the Redis sync
+    public static synchronized void init(Vertx vertx) {
+        if (started || !ENABLED) {
+            return;
+        }
+        started = true;
+        vertx.setPeriodic(SYNC_MS, id -> sync());
+        Metrics.gauge("rate_limit_buckets", "Rate limit buckets held in memory", buckets::size);
+    }
+
+    public static Handler<RoutingContext> byIp(String route) {
+        return limiter(route, "ip", RateLimiter::clientIp);
+    }
+
+    public static Handler<RoutingContext> byAccount(String route, Function<RoutingContext, String> account) {
+        return limiter(route, "account", account);
+    }
+
+    // Account for the unauthenticated auth routes; needs the body handler in front
+    public static String bodyEmail(RoutingContext ctx) {
+        try {
+            String email = ctx.body().asJsonObject().getString("email");
+            return email == null || email.isBlank() ? null : email.trim().toLowerCase(Locale.ROOT);
+        } catch (RuntimeException e) {
+            return null; // the handler rejects the body itself
+        }
+    }
+
+    // Account for routes behind AuthMiddleware
+    public static String userEmail(RoutingContext ctx) {
+        Object email = ctx.get("userEmail");
+        return email == null ? null : email.toString();
+    }
+
+    private static Handler<RoutingContext> limiter(String route, String scope, Function<RoutingContext, String> key) {
+        Limit limit = limit(route, scope);
+        if (!ENABLED || limit == null) {
+            return RoutingContext::next;
+        }
+        return ctx -> {
+            String id = key.apply(ctx);
+            if (id == null) {
+                ctx.next();
+                return;
+            }
+            String bucketKey = KEY_PREFIX + route + ":" + scope + ":" + id;
+            long waitNanos = buckets.computeIfAbsent(bucketKey, k -> new Bucket(k, limit)).take(System.nanoTime());
+            if (waitNanos == 0) {
+                ctx.next();
+                return;
+            }
+
+            long retryAfter = Math.max(1, (long) Math.ceil(waitNanos / 1e9));
+            Metrics.increment("rate_limited_total", "Requests rejected by a rate limit", "route", route, "scope", scope);
+            ctx.response().setStatusCode(429)
+                    .putHeader("Retry-After", String.valueOf(retryAfter))
+                    .end("Too many requests, try again in " + retryAfter + " seconds");
+        };
+    }
+
+    // A malformed setting falls back to the default, as AppConfig.getInt does
+    static Limit limit(String route, String scope) {
+        String name = (route + "_" + scope).toUpperCase(Locale.ROOT).replace('-', '_');
+        String key = "RATE_LIMIT_" + name;
+        String defaultValue = DEFAULTS.getOrDefault(name, "0");
+        String value = AppConfig.get(key, defaultValue);
+        try {
+            return parseLimit(value);
+        } catch (NumberFormatException e) {
+            System.err.println("Invalid rate limit for " + key + ": " + value + ", using " + defaultValue);
+            return parseLimit(defaultValue);
+        }
+    }
+
+    private static Limit parseLimit(String value) {
+        String[] parts = value.split("/");
+        double capacity = Double.parseDouble(parts[0].trim());
+        double perMinute = parts.length > 1 ? Double.parseDouble(parts[1].trim()) : capacity;
+        if (capacity <= 0 || perMinute <= 0) {
+            return null;
+        }
+        return Limit.perMinute(capacity, perMinute);
+    }
+
+    private static String clientIp(RoutingContext ctx) {
+        SocketAddress address = ctx.request().remoteAddress();
+        return address == null ? null : address.hostAddress();
+    }
+
+    // Reports the spending of every bucket used since the last sync in one pipelined batch
+    private static void sync() {
+        if (RedisUtil.getClient() == null) {
+            return;
+        }
+        long now = System.nanoTime();
+        List<Bucket> synced = new ArrayList<>();
+        List<Long> sent = new ArrayList<>();
+        List<Request> requests = new ArrayList<>();
+
+        for (Iterator<Bucket> it = buckets.values().iterator(); it.hasNext(); ) {
+            Bucket bucket = it.next();
+            long spent = bucket.drainPending(now);
+            if (spent < 0) {
+                it.remove(); // idle long enough to be full again
+                continue;
+            }
+            if (spent == Bucket.UNTOUCHED) {
+                continue;
+            }
+            long ttlSeconds = Math.max(2, TimeUnit.NANOSECONDS.toSeconds(bucket.limit.fullRefillNanos()) + 1);
+            requests.add(Request.cmd(Command.INCRBY).arg(bucket.key).arg(spent));
+            requests.add(Request.cmd(Command.EXPIRE).arg(bucket.key).arg(ttlSeconds));
+            synced.add(bucket);
+            sent.add(spent);
+        }
+        if (requests.isEmpty()) {
+            return;
+        }
+
+        RedisUtil.getClient().batch(requests)
+                .onSuccess(responses -> {
+                    syncFailing = false;
+                    for (int i = 0; i < synced.size(); i++) {
+                        Response total = responses.get(i * 2);
+                        synced.get(i).merge(total.toLong(), sent.get(i));
+                    }
+                })
+                .onFailure(err -> {
+                    if (!syncFailing) {
+                        System.err.println("⚠️ Rate limit sync failed, limits are per node for now: " + err.getMessage());
+                    }
+                    syncFailing = true;
+                    for (int i = 0; i < synced.size(); i++) {
+                        synced.get(i).restore(sent.get(i));
+                    }
+                });
+    }
+
+    static final class Bucket {
+        static final long UNTOUCHED = Long.MAX_VALUE;
+
+        final String key;
+        final Limit limit;
+        private double tokens;
+        private long refilledAt;
+        private long pending;      // taken here and not yet reported to Redis
+        private long seenTotal;    // the shared counter after our last report
+        private boolean synced;
+        private boolean touched;
+
+        Bucket(String key, Limit limit) {
+            this.key = key;
+            this.limit = limit;
+            this.tokens = limit.capacity;
+            this.refilledAt = System.nanoTime();
+        }
+
+        // 0 when a token was taken, otherwise how long until one is available
+        synchronized long take(long now) {
+            refill(now);
+            touched = true;
+            if (tokens >= 1) {
+                tokens -= 1;
+                pending++;
+                return 0;
+            }
+            return (long) ((1 - tokens) / limit.tokensPerNano);
+        }
+
+        // Spending to report, UNTOUCHED if there is nothing to sync, -1 if the bucket can be dropped
+        synchronized long drainPending(long now) {
+            if (!touched) {
+                return now - refilledAt > limit.fullRefillNanos() ? -1 : UNTOUCHED;
+            }
+            touched = false;
+            long spent = pending;
+            pending = 0;
+            return spent;
+        }
+
+        // Whatever the counter holds besides our own reports was spent on other nodes: all of it on the
+        // first report (the key only lives as long as a full refill), afterwards only what it grew by
+        synchronized void merge(long total, long sent) {
+            long before = total - sent;
+            long others = !synced || before < seenTotal ? before : before - seenTotal; // < when the key expired
+            if (others > 0) {
+                tokens = Math.max(0, tokens - Math.min(others, limit.capacity));
+            }
+            seenTotal = total;
+            synced = true;
+        }
+
+        synchronized void restore(long sent) {
+            pending += sent;
+            touched = true;
+        }
+
+        private void refill(long now) {
+            tokens = Math.min(limit.capacity, tokens + (now - refilledAt) * limit.tokensPerNano);
+            refilledAt = now;
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package lostandfound.config.middleware;
+
+import io.vertx.ext.web.Route;
+import io.vertx.ext.web.RoutingContext;
+import lostandfound.config.utils.Metrics;
+
+// Times every request and labels it with the route template (/api/items/:id), never the raw path,
+// so ids and query strings can't blow up the number of series.
+public class RequestMetrics {
+    public static void handle(RoutingContext ctx) {
+        long start = System.nanoTime();
+        ctx.addEndHandler(ar -> Metrics.observeNanos("http_server_requests_seconds",
+                "HTTP requests by route template, method and status", start,
+                "method", ctx.request().method().name(),
+                "route", routeTemplate(ctx),
+                "status", Integer.toString(ctx.response().getStatusCode())));
+        ctx.next();
+    }
+
+    // The route whose handler ended the response; catch-all and regex routes (CORS, this one) and 404s are "unmatched"
+    private static String routeTemplate(RoutingContext ctx) {
+        Route route = ctx.currentRoute();
+        if (route == null || route.getPath() == null) {
+            return "unmatched";
+        }
+        return route.isExactPath() ? route.getPath() : route.getPath() + "*";
+    }
+}
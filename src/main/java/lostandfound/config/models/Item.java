@@ -15,10 +15,7 @@ public class Item {
                 .put("postedBy", userEmail)
                 .put("createdAt", System.currentTimeMillis());
 
-        if (body.containsKey("photoData")) {
-            doc.put("photoData", body.getString("photoData"));
-        }
-
+        // Images live in ImageStore; the handler adds photoUrl/photoHash once the file is written
         return doc;
     }
 }
@@ -0,0 +1,61 @@
+package lostandfound.config.utils;
+
+import io.vertx.core.Future;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import io.vertx.ext.mongo.MongoClient;
+
+// The public category list, encoded once and kept as a Buffer.
+// Only admin writes rebuild it, so GET /api/categories does not touch Mongo in steady state.
+public class CategoryCache {
+
+    public record Snapshot(Buffer body, String etag) {
+
+        public boolean matches(String ifNoneMatch) {
+            return ETags.matches(ifNoneMatch, etag);
+        }
+    }
+
+    private static Snapshot snapshot;
+    private static Future<Snapshot> loading;
+    private static long generation;
+
+    public static synchronized Future<Snapshot> get(MongoClient mongoClient) {
+        if (snapshot != null) {
+            return Future.succeededFuture(snapshot);
+        }
+        if (loading == null) {
+            loading = load(mongoClient, generation);
+        }
+        return loading;
+    }
+
+    // Called after an admin adds or deletes a category: rebuild right away (write-through)
+    public static synchronized Future<Snapshot> refresh(MongoClient mongoClient) {
+        generation++;
+        snapshot = null;
+        loading = load(mongoClient, generation);
+        return loading;
+    }
+
+    private static Future<Snapshot> load(MongoClient mongoClient, long loadGeneration) {
+        return mongoClient.find("categories", new JsonObject())
+                .map(categories -> {
+                    Buffer body = new JsonArray(categories).toBuffer();
+                    return new Snapshot(body, ETags.of(body));
+                })
+                .onComplete(res -> {
+                    synchronized (CategoryCache.class) {
+                        // A refresh that started after this load owns the cache now
+                        if (loadGeneration != generation) {
+                            return;
+                        }
+                        loading = null;
+                        if (res.succeeded()) {
+                            snapshot = res.result();
+                        }
+                    }
+                });
+    }
+}
@@ -0,0 +1,77 @@
+package lostandfound.config.utils;
+
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.json.JsonObject;
+import lostandfound.config.AppConfig;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+// Small image files kept in memory (LRU, bounded by total bytes), shared by all HTTP instances.
+// Files are content-addressed, so an entry never goes stale; it only has to be dropped when the file is deleted.
+// Files too big to cache are remembered too, so they go straight to StaticHandler without another stat.
+public class ImageCache {
+    private static final long MAX_BYTES = AppConfig.getLong("IMAGE_CACHE_MAX_BYTES", 16L * 1024 * 1024);
+    public static final long MAX_FILE_BYTES = AppConfig.getLong("IMAGE_CACHE_MAX_FILE_BYTES", 256 * 1024);
+
+    // body == null: the file exists but is served from disk
+    public record Entry(Buffer body) {
+        long bytes() {
+            return (body == null ? 0 : body.length()) + 128L;
+        }
+    }
+
+    private static final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(256, 0.75f, true);
+    private static long totalBytes;
+
+    private static final LongAdder hits = new LongAdder();
+    private static final LongAdder misses = new LongAdder();
+    private static final LongAdder evictions = new LongAdder();
+
+    public static synchronized Entry get(String path) {
+        Entry entry = entries.get(path);
+        if (entry == null) {
+            misses.increment();
+        } else {
+            hits.increment();
+        }
+        return entry;
+    }
+
+    public static synchronized void put(String path, Buffer body) {
+        Entry entry = new Entry(body);
+        Entry previous = entries.put(path, entry);
+        if (previous != null) {
+            totalBytes -= previous.bytes();
+        }
+        totalBytes += entry.bytes();
+
+        Iterator<Entry> eldest = entries.values().iterator();
+        while (totalBytes > MAX_BYTES && eldest.hasNext()) {
+            totalBytes -= eldest.next().bytes();
+            eldest.remove();
+            evictions.increment();
+        }
+    }
+
+    public static synchronized void remove(String path) {
+        Entry entry = entries.remove(path);
+        if (entry != null) {
+            totalBytes -= entry.bytes();
+        }
+    }
+
+    public static synchronized JsonObject stats() {
+        long hitCount = hits.sum();
+        long total = hitCount + misses.sum();
+        return new JsonObject()
+                .put("entries", entries.size())
+                .put("bytes", totalBytes)
+                .put("maxBytes", MAX_BYTES)
+                .put("hits", hitCount)
+                .put("misses", misses.sum())
+                .put("evictions", evictions.sum())
+                .put("hitRate", total == 0 ? 0.0 : (double) hitCount / total);
+    }
+}
@@ -0,0 +1,291 @@
+package lostandfound.config.utils;
+
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+import io.vertx.core.Vertx;
+import io.vertx.core.WorkerExecutor;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import io.vertx.ext.mongo.FindOptions;
+import io.vertx.ext.mongo.MongoClient;
+import io.vertx.ext.mongo.UpdateOptions;
+import lostandfound.config.AppConfig;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Thumbnail and medium-size copies of stored images, made with ImageIO on a small worker pool.
+// They sit next to the original as <hash>_thumb.<ext> / <hash>_medium.<ext>; items get thumbUrl and
+// mediumUrl once they exist. Work is keyed by content hash, so the same image is never resized twice
+// at the same time, and the pool size is the concurrency limit (the event loops never decode images).
+public class ImageRenditions {
+    private record Size(String name, int maxEdge, String field) {}
+
+    private static final List<Size> SIZES = List.of(
+            new Size("thumb", 240, "thumbUrl"),
+            new Size("medium", 960, "mediumUrl"));
+
+    private static final int POOL_SIZE = AppConfig.getInt("IMAGE_WORKERS", 2);
+    private static final int MAX_QUEUED = AppConfig.getInt("IMAGE_QUEUE_SIZE", 200);
+    private static final long MAX_PIXELS = 50_000_000L; // refuse decompression bombs before decoding
+    private static final int BACKFILL_BATCH = 20;
+
+    private static final Map<String, Future<JsonObject>> inFlight = new ConcurrentHashMap<>();
+    private static final AtomicInteger queued = new AtomicInteger();
+    private static volatile WorkerExecutor executor;
+
+    static {
+        System.setProperty("java.awt.headless", "true"); // servers have no display
+    }
+
+    // Called after an item with an image is saved; fire and forget
+    public static void schedule(Vertx vertx, MongoClient mongoClient, JsonObject item) {
+        String hash = item.getString("photoHash");
+        String photoUrl = item.getString("photoUrl");
+        if (hash == null || photoUrl == null) {
+            return;
+        }
+
+        render(vertx, hash, photoUrl)
+                .compose(fields -> fields.isEmpty()
+                        ? Future.succeededFuture()
+                        : applyToItems(mongoClient, hash, fields)
+                                .onSuccess(v -> {
+                                    ItemQueryCache.invalidate(item, item.copy().mergeIn(fields));
+                                    ItemEvents.publish(vertx, ItemEvents.UPDATED, item.copy().mergeIn(fields));
+                                }))
+                .onFailure(err -> System.err.println("Failed to make renditions for " + hash + ": " + err.getMessage()));
+    }
+
+    // {thumbUrl, mediumUrl} for this image, rendering only what is missing; empty if the format can't be decoded
+    public static Future<JsonObject> render(Vertx vertx, String hash, String photoUrl) {
+        Future<JsonObject> running = inFlight.get(hash);
+        if (running != null) {
+            return running;
+        }
+        if (queued.incrementAndGet() > MAX_QUEUED) {
+            queued.decrementAndGet();
+            return Future.failedFuture("rendition queue full"); // the startup backfill catches these later
+        }
+
+        Promise<JsonObject> promise = Promise.promise();
+        Future<JsonObject> existing = inFlight.putIfAbsent(hash, promise.future());
+        if (existing != null) {
+            queued.decrementAndGet();
+            return existing;
+        }
+
+        executor(vertx).<JsonObject>executeBlocking(() -> renderBlocking(photoUrl), false)
+                .onComplete(res -> {
+                    inFlight.remove(hash);
+                    queued.decrementAndGet();
+                    promise.handle(res);
+                });
+        return promise.future();
+    }
+
+    public static Future<Void> delete(Vertx vertx, String photoUrl) {
+        List<Future<Boolean>> deletes = new ArrayList<>();
+        for (Size size : SIZES) {
+            deletes.add(ImageStore.delete(vertx, renditionUrl(photoUrl, size)));
+        }
+        return Future.join(deletes).mapEmpty();
+    }
+
+    // Items posted before renditions existed, or whose job was dropped; one batch at a time
+    public static Future<Integer> backfill(Vertx vertx, MongoClient mongoClient) {
+        Promise<Integer> promise = Promise.promise();
+        backfillBatch(vertx, mongoClient, new ArrayList<>(), 0, promise);
+        return promise.future();
+    }
+
+    public static JsonObject stats() {
+        return new JsonObject()
+                .put("inFlight", inFlight.size())
+                .put("queued", queued.get())
+                .put("workers", POOL_SIZE);
+    }
+
+    private static void backfillBatch(Vertx vertx, MongoClient mongoClient, List<String> skipped, int done,
+                                      Promise<Integer> promise) {
+        JsonObject query = new JsonObject()
+                .put("photoHash", new JsonObject().put("$exists", true).put("$nin", new JsonArray(skipped)))
+                .put("thumbUrl", new JsonObject().put("$exists", false));
+        FindOptions options = new FindOptions()
+                .setLimit(BACKFILL_BATCH)
+                .setFields(new JsonObject().put("photoHash", 1).put("photoUrl", 1));
+
+        mongoClient.findWithOptions("items", query, options).onFailure(promise::fail).onSuccess(items -> {
+            if (items.isEmpty()) {
+                promise.complete(done);
+                return;
+            }
+
+            Map<String, String> urlsByHash = new LinkedHashMap<>();
+            items.forEach(item -> urlsByHash.put(item.getString("photoHash"), item.getString("photoUrl")));
+
+            List<Future<Boolean>> results = new ArrayList<>();
+            urlsByHash.forEach((hash, url) -> results.add(render(vertx, hash, url)
+                    .compose(fields -> {
+                        if (fields.isEmpty()) {
+                            skipped.add(hash); // undecodable (e.g. WebP); don't pick it up again
+                            return Future.succeededFuture(false);
+                        }
+                        return applyToItems(mongoClient, hash, fields).map(true);
+                    })
+                    .otherwise(err -> {
+                        skipped.add(hash);
+                        return false;
+                    })));
+
+            Future.all(results).onComplete(v -> {
+                ItemQueryCache.invalidateAll();
+                int rendered = (int) results.stream().filter(f -> Boolean.TRUE.equals(f.result())).count();
+                backfillBatch(vertx, mongoClient, skipped, done + rendered, promise);
+            });
+        });
+    }
+
+    // Every item sharing this image gets the renditions, in Mongo and in the search index
+    private static Future<Void> applyToItems(MongoClient mongoClient, String hash, JsonObject fields) {
+        JsonObject query = new JsonObject()
+                .put("photoHash", hash)
+                .put("thumbUrl", new JsonObject().put("$exists", false));
+        FindOptions idsOnly = new FindOptions().setFields(new JsonObject().put("_id", 1));
+
+        return mongoClient.findWithOptions("items", query, idsOnly).compose(items -> mongoClient
+                .updateCollectionWithOptions("items", query, new JsonObject().put("$set", fields),
+                        new UpdateOptions().setMulti(true))
+                .onSuccess(res -> items.forEach(item -> SearchIndex.update(String.valueOf(item.getValue("_id")), fields)))
+                .mapEmpty());
+    }
+
+    private static JsonObject renderBlocking(String photoUrl) throws IOException {
+        File source = new File(filePath(photoUrl));
+        String format = formatOf(photoUrl);
+        JsonObject fields = new JsonObject();
+
+        BufferedImage image = null;
+        for (Size size : SIZES) {
+            String url = renditionUrl(photoUrl, size);
+            File target = new File(filePath(url));
+            if (!target.exists()) {
+                if (image == null) {
+                    image = read(source);
+                    if (image == null) {
+                        return new JsonObject(); // no ImageIO reader for this format
+                    }
+                }
+                write(scale(image, size.maxEdge(), format), format, target);
+            }
+            fields.put(size.field(), url);
+        }
+        return fields;
+    }
+
+    private static BufferedImage read(File source) throws IOException {
+        if (!source.isFile()) {
+            throw new IOException("Missing " + source);
+        }
+        try (ImageInputStream input = ImageIO.createImageInputStream(source)) {
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(input);
+            if (!readers.hasNext()) {
+                return null;
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(input, true, true);
+                if ((long) reader.getWidth(0) * reader.getHeight(0) > MAX_PIXELS) {
+                    throw new IOException("Image too large to resize");
+                }
+                return reader.read(0);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    // Fits the image inside maxEdge x maxEdge, halving in steps first so downscaling stays smooth
+    private static BufferedImage scale(BufferedImage source, int maxEdge, String format) {
+        int width = source.getWidth();
+        int height = source.getHeight();
+        double ratio = Math.min(1.0, (double) maxEdge / Math.max(width, height));
+        int targetWidth = Math.max(1, (int) Math.round(width * ratio));
+        int targetHeight = Math.max(1, (int) Math.round(height * ratio));
+        int type = "jpg".equals(format) ? BufferedImage.TYPE_INT_RGB : BufferedImage.TYPE_INT_ARGB;
+
+        BufferedImage current = source;
+        do {
+            int w = Math.max(targetWidth, current.getWidth() / 2);
+            int h = Math.max(targetHeight, current.getHeight() / 2);
+            BufferedImage next = new BufferedImage(w, h, type);
+            Graphics2D g = next.createGraphics();
+            try {
+                g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+                g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+                g.drawImage(current, 0, 0, w, h, null);
+            } finally {
+                g.dispose();
+            }
+            current = next;
+        } while (current.getWidth() != targetWidth || current.getHeight() != targetHeight);
+        return current;
+    }
+
+    // Written to a temp file and moved in place, so a half-written rendition is never served
+    private static void write(BufferedImage image, String format, File target) throws IOException {
+        Path temp = Path.of(ImageStore.TEMP_DIR, UUID.randomUUID() + ".tmp");
+        Files.createDirectories(temp.getParent());
+        try {
+            if (!ImageIO.write(image, format, temp.toFile())) {
+                throw new IOException("No ImageIO writer for " + format);
+            }
+            Files.move(temp, target.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    // GIFs become PNG renditions (first frame); the rest keep their format
+    private static String formatOf(String photoUrl) {
+        String extension = photoUrl.substring(photoUrl.lastIndexOf('.') + 1);
+        return "gif".equals(extension) ? "png" : extension;
+    }
+
+    private static String renditionUrl(String photoUrl, Size size) {
+        int dot = photoUrl.lastIndexOf('.');
+        return photoUrl.substring(0, dot) + "_" + size.name() + "." + formatOf(photoUrl);
+    }
+
+    private static String filePath(String url) {
+        return ImageStore.UPLOADS_DIR + "/" + url.substring(ImageStore.URL_PREFIX.length());
+    }
+
+    private static WorkerExecutor executor(Vertx vertx) {
+        if (executor == null) {
+            synchronized (ImageRenditions.class) {
+                if (executor == null) {
+                    executor = vertx.createSharedWorkerExecutor("image-renditions", POOL_SIZE);
+                }
+            }
+        }
+        return executor;
+    }
+}
@@ -0,0 +1,283 @@
+package lostandfound.config.utils;
+
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.file.AsyncFile;
+import io.vertx.core.file.CopyOptions;
+import io.vertx.core.file.FileSystem;
+import io.vertx.core.file.OpenOptions;
+import io.vertx.core.http.HttpServerFileUpload;
+import io.vertx.core.json.JsonObject;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.regex.Pattern;
+
+// Content-addressed image files under uploads/.
+// An image is stored once as uploads/<first 2 hex chars>/<sha256>.<ext>, so identical
+// uploads share one file and a URL never changes content (safe to cache forever).
+public class ImageStore {
+    public static final String UPLOADS_DIR = "uploads";
+    public static final String URL_PREFIX = "/uploads/";
+    // In-flight writes; hidden from the static handler and swept by sweepTempFiles
+    public static final String TEMP_DIR = UPLOADS_DIR + "/.tmp";
+
+    private static final Set<String> ALLOWED_TYPES = Set.of("image/jpeg", "image/png", "image/gif", "image/webp");
+    // Files the old global BodyHandler left directly in uploads/ (random UUID names, never referenced)
+    private static final Pattern LEGACY_UPLOAD = Pattern.compile("[0-9a-f]{8}-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{12}");
+    private static final long HEADER_BYTES = 12; // enough for every magic number in detectExtension
+
+    public static class TooLargeException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        public TooLargeException(long maxBytes) {
+            super("Image is larger than " + (maxBytes / 1024) + " KB");
+        }
+    }
+
+    public record StoredImage(String hash, String extension) {
+
+        public String relativePath() {
+            return hash.substring(0, 2) + "/" + hash + "." + extension;
+        }
+
+        public String filePath() {
+            return UPLOADS_DIR + "/" + relativePath();
+        }
+
+        public String url() {
+            return URL_PREFIX + relativePath();
+        }
+
+        // Fields kept on the item document instead of the image bytes
+        public JsonObject toItemFields() {
+            return new JsonObject()
+                    .put("photoUrl", url())
+                    .put("photoHash", hash);
+        }
+    }
+
+    // An upload streamed to a temp file and hashed on the way; commit() moves it into the store
+    public record StagedImage(String tempPath, StoredImage image) {}
+
+    // Accepts plain base64 or a data URL ("data:image/png;base64,..."); fails with TooLargeException
+    // when the decoded image is over maxBytes
+    public static Future<StoredImage> storeBase64(Vertx vertx, String photoData, long maxBytes) {
+        return vertx.<byte[]>executeBlocking(() -> {
+                    byte[] bytes = decodeBase64(photoData);
+                    if (bytes.length > maxBytes) {
+                        throw new TooLargeException(maxBytes);
+                    }
+                    return bytes;
+                }, false)
+                .compose(bytes -> store(vertx, bytes));
+    }
+
+    public static Future<StoredImage> store(Vertx vertx, byte[] bytes) {
+        // Hashing a few MB is too slow for an event loop
+        return vertx.executeBlocking(() -> {
+            String extension = detectExtension(bytes);
+            if (extension == null) {
+                throw new IllegalArgumentException("Unsupported image type");
+            }
+            return new StoredImage(sha256(bytes), extension);
+        }, false).compose(image -> writeIfAbsent(vertx, image, Buffer.buffer(bytes)));
+    }
+
+    private static Future<StoredImage> writeIfAbsent(Vertx vertx, StoredImage image, Buffer data) {
+        FileSystem fs = vertx.fileSystem();
+        String target = image.filePath();
+
+        return fs.exists(target).compose(exists -> {
+            if (exists) {
+                return Future.succeededFuture(image); // deduplicated
+            }
+
+            // Write to a temp name and rename, so a half-written file is never served
+            String temp = TEMP_DIR + "/" + UUID.randomUUID() + ".tmp";
+            return fs.mkdirs(TEMP_DIR)
+                    .compose(v -> fs.writeFile(temp, data))
+                    .compose(v -> moveIntoStore(vertx, temp, image));
+        });
+    }
+
+    private static Future<StoredImage> moveIntoStore(Vertx vertx, String temp, StoredImage image) {
+        FileSystem fs = vertx.fileSystem();
+        return fs.mkdirs(UPLOADS_DIR + "/" + image.hash().substring(0, 2))
+                .compose(v -> fs.move(temp, image.filePath(), new CopyOptions().setReplaceExisting(true)))
+                .map(image);
+    }
+
+    // Streams one multipart file part to disk. The declared type, the magic bytes and the size are
+    // checked as the data arrives, so a bad or oversized upload is refused without buffering it.
+    public static Future<StagedImage> stage(Vertx vertx, HttpServerFileUpload upload, long maxBytes) {
+        if (!ALLOWED_TYPES.contains(upload.contentType())) {
+            return Future.failedFuture(new IllegalArgumentException("Unsupported image type " + upload.contentType()));
+        }
+
+        FileSystem fs = vertx.fileSystem();
+        String temp = TEMP_DIR + "/" + UUID.randomUUID() + ".part";
+        MessageDigest digest = sha256Digest();
+        Promise<StagedImage> promise = Promise.promise();
+
+        upload.pause(); // hold the data until the file is open
+        fs.mkdirs(TEMP_DIR)
+                .compose(v -> fs.open(temp, new OpenOptions().setWrite(true).setCreateNew(true)))
+                .onFailure(promise::tryFail)
+                .onSuccess(file -> {
+                    long[] size = {0};
+                    Buffer header = Buffer.buffer();
+
+                    upload.handler(chunk -> {
+                        if (promise.future().isComplete()) {
+                            return; // already refused; the rest is dropped
+                        }
+                        size[0] += chunk.length();
+                        if (size[0] > maxBytes) {
+                            promise.tryFail(new TooLargeException(maxBytes));
+                            return;
+                        }
+                        if (header.length() < HEADER_BYTES) {
+                            header.appendBuffer(chunk, 0, (int) Math.min(chunk.length(), HEADER_BYTES - header.length()));
+                            if (header.length() == HEADER_BYTES && detectExtension(header.getBytes()) == null) {
+                                promise.tryFail(new IllegalArgumentException("Unsupported image type"));
+                                return;
+                            }
+                        }
+                        digest.update(chunk.getBytes());
+                        file.write(chunk);
+                        if (file.writeQueueFull()) {
+                            upload.pause();
+                            file.drainHandler(v -> upload.resume());
+                        }
+                    });
+                    upload.exceptionHandler(promise::tryFail);
+                    upload.endHandler(v -> {
+                        String extension = detectExtension(header.getBytes());
+                        if (extension == null) {
+                            promise.tryFail(new IllegalArgumentException("Unsupported image type"));
+                            return;
+                        }
+                        StoredImage image = new StoredImage(HexFormat.of().formatHex(digest.digest()), extension);
+                        file.close()
+                                .onSuccess(closed -> promise.tryComplete(new StagedImage(temp, image)))
+                                .onFailure(promise::tryFail);
+                    });
+
+                    promise.future().onFailure(err -> closeAndDelete(vertx, file, temp));
+                    upload.resume();
+                });
+        return promise.future();
+    }
+
+    // Moves a staged upload into the store (or drops it when the same image is already there)
+    public static Future<StoredImage> commit(Vertx vertx, StagedImage staged) {
+        FileSystem fs = vertx.fileSystem();
+        StoredImage image = staged.image();
+        return fs.exists(image.filePath()).compose(exists -> exists
+                ? fs.delete(staged.tempPath()).map(image)
+                : moveIntoStore(vertx, staged.tempPath(), image));
+    }
+
+    public static void discard(Vertx vertx, StagedImage staged) {
+        vertx.fileSystem().delete(staged.tempPath())
+                .onFailure(err -> System.err.println("Failed to delete " + staged.tempPath() + ": " + err.getMessage()));
+    }
+
+    private static void closeAndDelete(Vertx vertx, AsyncFile file, String path) {
+        file.close().eventually(() -> vertx.fileSystem().delete(path));
+    }
+
+    // Deletes temp files older than maxAgeMs (crashed or abandoned writes) and old BodyHandler leftovers
+    public static Future<Integer> sweepTempFiles(Vertx vertx, long maxAgeMs) {
+        FileSystem fs = vertx.fileSystem();
+        long cutoff = System.currentTimeMillis() - maxAgeMs;
+
+        return Future.all(listOrEmpty(fs, TEMP_DIR, null), listOrEmpty(fs, UPLOADS_DIR, LEGACY_UPLOAD.pattern()))
+                .compose(lists -> {
+                    List<String> paths = new ArrayList<>(lists.<List<String>>resultAt(0));
+                    paths.addAll(lists.<List<String>>resultAt(1));
+
+                    List<Future<Boolean>> deletes = new ArrayList<>();
+                    for (String path : paths) {
+                        deletes.add(fs.props(path)
+                                .compose(props -> props.isRegularFile() && props.lastModifiedTime() < cutoff
+                                        ? fs.delete(path).map(true)
+                                        : Future.succeededFuture(false))
+                                .otherwise(false));
+                    }
+                    return Future.all(deletes).map(all -> (int) deletes.stream().filter(Future::result).count());
+                });
+    }
+
+    private static Future<List<String>> listOrEmpty(FileSystem fs, String dir, String filter) {
+        return fs.exists(dir).compose(exists -> !exists
+                ? Future.succeededFuture(List.of())
+                : filter == null ? fs.readDir(dir) : fs.readDir(dir, filter));
+    }
+
+    // Removes the file behind a photoUrl once no item references it any more
+    public static Future<Boolean> delete(Vertx vertx, String photoUrl) {
+        if (photoUrl == null || !photoUrl.startsWith(URL_PREFIX) || photoUrl.contains("..")) {
+            return Future.succeededFuture(false);
+        }
+        FileSystem fs = vertx.fileSystem();
+        String path = UPLOADS_DIR + "/" + photoUrl.substring(URL_PREFIX.length());
+
+        ImageCache.remove(path);
+        return fs.exists(path).compose(exists -> exists
+                ? fs.delete(path).map(true)
+                : Future.succeededFuture(false));
+    }
+
+    static byte[] decodeBase64(String photoData) {
+        String data = photoData.trim();
+        int comma = data.indexOf(',');
+        if (data.startsWith("data:") && comma > 0) {
+            data = data.substring(comma + 1);
+        }
+        try {
+            return Base64.getMimeDecoder().decode(data);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("photoData is not valid base64");
+        }
+    }
+
+    // Sniffs the magic bytes; the client-declared type is not trusted
+    public static String detectExtension(byte[] bytes) {
+        if (bytes.length >= 3 && (bytes[0] & 0xFF) == 0xFF && (bytes[1] & 0xFF) == 0xD8 && (bytes[2] & 0xFF) == 0xFF) {
+            return "jpg";
+        }
+        if (bytes.length >= 8 && (bytes[0] & 0xFF) == 0x89 && bytes[1] == 'P' && bytes[2] == 'N' && bytes[3] == 'G') {
+            return "png";
+        }
+        if (bytes.length >= 6 && bytes[0] == 'G' && bytes[1] == 'I' && bytes[2] == 'F' && bytes[3] == '8') {
+            return "gif";
+        }
+        if (bytes.length >= 12 && bytes[0] == 'R' && bytes[1] == 'I' && bytes[2] == 'F' && bytes[3] == 'F'
+                && bytes[8] == 'W' && bytes[9] == 'E' && bytes[10] == 'B' && bytes[11] == 'P') {
+            return "webp";
+        }
+        return null;
+    }
+
+    static String sha256(byte[] bytes) {
+        return HexFormat.of().formatHex(sha256Digest().digest(bytes));
+    }
+
+    private static MessageDigest sha256Digest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
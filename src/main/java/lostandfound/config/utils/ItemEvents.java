@@ -0,0 +1,97 @@
+package lostandfound.config.utils;
+
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonObject;
+import lostandfound.config.AppConfig;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Set;
+
+// Item changes published on the event bus for the live feed (ItemStreamHandler). The last
+// ITEM_EVENTS_BUFFER events are kept so a reconnecting client can resume from its Last-Event-ID.
+// Ids are "<epoch>-<seq>"; the epoch changes on restart, so an id from a previous process can't
+// silently skip events.
+public class ItemEvents {
+    public static final String ADDRESS = "items.events";
+
+    public static final String CREATED = "created";
+    public static final String CLAIMED = "claimed";
+    public static final String UPDATED = "updated";
+    public static final String DELETED = "deleted";
+
+    // What a list page shows; claimedRequests and anything else internal stays out
+    private static final Set<String> FIELDS = Set.of("_id", "title", "description", "status", "isClaimed",
+            "claimedAt", "categoryId", "location", "contact", "postedBy", "createdAt", "photoUrl", "thumbUrl",
+            "mediumUrl");
+    private static final Set<String> DELETED_FIELDS = Set.of("_id", "status", "categoryId");
+
+    private static final int BUFFER = AppConfig.getInt("ITEM_EVENTS_BUFFER", 1000);
+    private static final String EPOCH = Long.toString(System.currentTimeMillis(), 36);
+    private static final Deque<JsonObject> recent = new ArrayDeque<>();
+    private static long sequence;
+
+    // Events to replay (null when the client has to reload instead) and the sequence they end at
+    public record Replay(List<JsonObject> events, long sequence) {}
+
+    public static void publish(Vertx vertx, String type, JsonObject item) {
+        JsonObject slim = new JsonObject();
+        Set<String> fields = DELETED.equals(type) ? DELETED_FIELDS : FIELDS;
+        item.forEach(entry -> {
+            if (fields.contains(entry.getKey())) {
+                slim.put(entry.getKey(), entry.getKey().equals("_id") ? String.valueOf(entry.getValue()) : entry.getValue());
+            }
+        });
+
+        // Publishing under the lock keeps delivery in sequence order, which ItemStreamHandler relies on
+        synchronized (ItemEvents.class) {
+            sequence++;
+            JsonObject event = new JsonObject()
+                    .put("id", EPOCH + "-" + sequence)
+                    .put("seq", sequence)
+                    .put("type", type)
+                    .put("at", System.currentTimeMillis())
+                    .put("item", slim);
+            recent.addLast(event);
+            if (recent.size() > BUFFER) {
+                recent.removeFirst();
+            }
+            vertx.eventBus().publish(ADDRESS, event);
+        }
+    }
+
+    // Events after lastEventId, oldest first, read together with the current sequence so nothing falls
+    // between the replay and live delivery. No events to replay without an id; null events when they
+    // can't all be replayed (unknown epoch or the id already fell out of the buffer).
+    public static synchronized Replay since(String lastEventId) {
+        if (lastEventId == null) {
+            return new Replay(List.of(), sequence);
+        }
+        long seq = sequenceOf(lastEventId);
+        long oldest = recent.isEmpty() ? sequence + 1 : recent.peekFirst().getLong("seq");
+        if (seq < 0 || seq < oldest - 1 || seq > sequence) {
+            return new Replay(null, sequence);
+        }
+        List<JsonObject> events = new ArrayList<>();
+        for (JsonObject event : recent) {
+            if (event.getLong("seq") > seq) {
+                events.add(event);
+            }
+        }
+        return new Replay(events, sequence);
+    }
+
+    private static long sequenceOf(String eventId) {
+        int dash = eventId.indexOf('-');
+        if (dash < 0 || !eventId.substring(0, dash).equals(EPOCH)) {
+            return -1;
+        }
+        try {
+            return Long.parseLong(eventId.substring(dash + 1));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+}
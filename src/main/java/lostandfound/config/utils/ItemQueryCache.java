@@ -0,0 +1,131 @@
+package lostandfound.config.utils;
+
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.json.JsonObject;
+import lostandfound.config.AppConfig;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+// Encoded GET /api/items pages keyed by the normalized filter, sort, page and projection.
+// Bounded by total bytes (LRU). A write only drops the pages whose filter matches the
+// item before or after the change, so unrelated listings stay cached.
+public class ItemQueryCache {
+    private static final long MAX_BYTES = AppConfig.getLong("ITEM_CACHE_MAX_BYTES", 32L * 1024 * 1024);
+    private static final long MAX_ENTRY_BYTES = MAX_BYTES / 16;
+
+    // The list filters; null means "not filtered on"
+    public record Filter(String status, String categoryId, String location, Boolean isClaimed, String title) {
+
+        public boolean matches(JsonObject item) {
+            if (item == null) {
+                return false;
+            }
+            if (status != null && !status.equals(item.getString("status"))) return false;
+            if (categoryId != null && !categoryId.equals(item.getString("categoryId"))) return false;
+            if (location != null && !location.equals(item.getString("location"))) return false;
+            if (isClaimed != null && isClaimed != item.getBoolean("isClaimed", false)) return false;
+            if (title != null) {
+                // The title filter is a regex; when it has metacharacters we can't cheaply tell, so assume a match
+                String itemTitle = item.getString("title", "");
+                boolean literal = title.chars().allMatch(c -> Character.isLetterOrDigit(c) || c == ' ');
+                return !literal || itemTitle.toLowerCase(Locale.ROOT).contains(title.toLowerCase(Locale.ROOT));
+            }
+            return true;
+        }
+    }
+
+    public record Page(Buffer body, String etag, String nextCursor) {}
+
+    private record Entry(Filter filter, Page page) {
+        long bytes() {
+            return page.body().length() + 256L; // rough per-entry overhead
+        }
+    }
+
+    private static final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(256, 0.75f, true);
+    private static long totalBytes;
+    // Bumped on every invalidation; a query that started before a write must not populate the cache
+    private static long version;
+
+    private static final LongAdder hits = new LongAdder();
+    private static final LongAdder misses = new LongAdder();
+    private static final LongAdder evictions = new LongAdder();
+    private static final LongAdder invalidations = new LongAdder();
+
+    public static synchronized long version() {
+        return version;
+    }
+
+    public static synchronized Page get(String key) {
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        return entry.page();
+    }
+
+    public static synchronized void put(String key, Filter filter, Page page, long versionAtQuery) {
+        if (versionAtQuery != version) {
+            return; // the data changed while this page was being read
+        }
+        Entry entry = new Entry(filter, page);
+        if (entry.bytes() > MAX_ENTRY_BYTES) {
+            return;
+        }
+
+        Entry previous = entries.put(key, entry);
+        if (previous != null) {
+            totalBytes -= previous.bytes();
+        }
+        totalBytes += entry.bytes();
+
+        Iterator<Entry> eldest = entries.values().iterator();
+        while (totalBytes > MAX_BYTES && eldest.hasNext()) {
+            totalBytes -= eldest.next().bytes();
+            eldest.remove();
+            evictions.increment();
+        }
+    }
+
+    // Drops every page whose filter matches the item before or after a write
+    public static synchronized void invalidate(JsonObject before, JsonObject after) {
+        version++;
+        Iterator<Map.Entry<String, Entry>> it = entries.entrySet().iterator();
+        while (it.hasNext()) {
+            Entry entry = it.next().getValue();
+            if (entry.filter().matches(before) || entry.filter().matches(after)) {
+                totalBytes -= entry.bytes();
+                it.remove();
+                invalidations.increment();
+            }
+        }
+    }
+
+    // Bulk deletes (cleanup) don't tell us which items went away
+    public static synchronized void invalidateAll() {
+        version++;
+        invalidations.add(entries.size());
+        entries.clear();
+        totalBytes = 0;
+    }
+
+    public static synchronized JsonObject stats() {
+        long hitCount = hits.sum();
+        long total = hitCount + misses.sum();
+        return new JsonObject()
+                .put("entries", entries.size())
+                .put("bytes", totalBytes)
+                .put("maxBytes", MAX_BYTES)
+                .put("hits", hitCount)
+                .put("misses", misses.sum())
+                .put("evictions", evictions.sum())
+                .put("invalidations", invalidations.sum())
+                .put("hitRate", total == 0 ? 0.0 : (double) hitCount / total);
+    }
+}
@@ -0,0 +1,89 @@
+package lostandfound.config.utils;
+
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.http.HttpServerResponse;
+import io.vertx.core.json.JsonObject;
+import io.vertx.core.streams.ReadStream;
+import io.vertx.ext.web.RoutingContext;
+
+// Streams documents from a Mongo batch cursor straight into a chunked HTTP response.
+// Reading pauses whenever the socket's write queue is full, so memory stays flat
+// regardless of how many documents the cursor returns.
+public class JsonStreamer {
+
+    public enum Format {
+        JSON_ARRAY("application/json"),
+        NDJSON("application/x-ndjson");
+
+        private final String contentType;
+
+        Format(String contentType) {
+            this.contentType = contentType;
+        }
+    }
+
+    private static final Buffer NEWLINE = Buffer.buffer("\n");
+
+    public static void stream(RoutingContext ctx, ReadStream<JsonObject> source, Format format) {
+        HttpServerResponse response = ctx.response();
+        boolean[] first = {true};
+        boolean[] cancelled = {false};
+
+        response.setChunked(true).putHeader("Content-Type", format.contentType);
+
+        // Client went away or the write failed: clearing the handler cancels the subscription, which
+        // also kills the server-side cursor (pausing would keep it open until Mongo times it out)
+        Runnable cancel = () -> {
+            if (!cancelled[0]) {
+                cancelled[0] = true;
+                source.handler(null);
+            }
+        };
+        response.closeHandler(v -> cancel.run());
+        response.exceptionHandler(err -> {
+            System.err.println("Streaming response failed: " + err.getMessage());
+            cancel.run();
+        });
+
+        source.exceptionHandler(err -> {
+            if (cancelled[0]) {
+                return;
+            }
+            System.err.println("Streaming failed: " + err.getMessage());
+            if (!response.headWritten()) {
+                response.setChunked(false).setStatusCode(500).end("Failed to fetch items");
+            } else {
+                response.reset(); // abort, so the client sees a truncated body rather than valid JSON
+            }
+        });
+
+        source.handler(doc -> {
+            Buffer chunk = Buffer.buffer();
+            if (format == Format.JSON_ARRAY) {
+                chunk.appendString(first[0] ? "[" : ",");
+            }
+            first[0] = false;
+            chunk.appendBuffer(doc.toBuffer());
+            if (format == Format.NDJSON) {
+                chunk.appendBuffer(NEWLINE);
+            }
+            response.write(chunk);
+
+            if (response.writeQueueFull()) {
+                source.pause();
+                response.drainHandler(drained -> source.resume());
+            }
+        });
+
+        source.endHandler(v -> {
+            if (cancelled[0]) {
+                return; // nobody left to write to
+            }
+            if (format == Format.JSON_ARRAY) {
+                response.end(first[0] ? "[]" : "]");
+            } else {
+                response.end();
+            }
+        });
+    }
+}
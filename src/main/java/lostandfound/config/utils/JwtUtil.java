@@ -1,6 +1,7 @@
 package lostandfound.config.utils;
 
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.security.Keys;
@@ -17,6 +18,11 @@ public class JwtUtil {
 
     private static final long EXPIRATION_TIME = 1000 * 60 * 60 * 2; // 2 hours
 
+    // Parsers are immutable and thread-safe, so build it once
+    private static final JwtParser PARSER = Jwts.parserBuilder()
+            .setSigningKey(SECRET_KEY)
+            .build();
+
     public static String createToken(String email, String role) {
         return Jwts.builder()
                 .setSubject(email)
@@ -27,40 +33,47 @@ public class JwtUtil {
                 .compact();
     }
 
-    public static boolean validateToken(String token) {
+    // Verifies the token once and returns its claims, or null if it is invalid or expired.
+    // Tokens that were verified before are served from TokenCache without another HMAC check.
+    public static VerifiedToken verify(String token) {
+        VerifiedToken cached = TokenCache.get(token);
+        if (cached != null) {
+            return cached;
+        }
+
+        VerifiedToken verified = parseToken(token);
+        if (verified != null) {
+            TokenCache.put(token, verified);
+        }
+        return verified;
+    }
+
+    public static VerifiedToken parseToken(String token) {
         try {
-            Jwts.parserBuilder()
-                    .setSigningKey(SECRET_KEY)
-                    .build()
-                    .parseClaimsJws(token);
-            return true;
+            Claims claims = PARSER.parseClaimsJws(token).getBody();
+            return new VerifiedToken(
+                    claims.getSubject(),
+                    claims.get("role", String.class),
+                    claims.getExpiration().getTime());
         } catch (Exception e) {
-            return false;
+            return null;
         }
     }
 
+    public static boolean validateToken(String token) {
+        return verify(token) != null;
+    }
+
     public static String getEmailFromToken(String token) {
-        Claims claims = Jwts.parserBuilder()
-                .setSigningKey(SECRET_KEY)
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
-        return claims.getSubject();
+        return PARSER.parseClaimsJws(token).getBody().getSubject();
     }
 
     public static String getRoleFromToken(String token) {
-        Claims claims = Jwts.parserBuilder()
-                .setSigningKey(SECRET_KEY)
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
-        return claims.get("role", String.class);
+        return PARSER.parseClaimsJws(token).getBody().get("role", String.class);
     }
+
     public static long getExpirationTime(String token) {
-        Claims claims = Jwts.parser().setSigningKey(SECRET_KEY)
-                .parseClaimsJws(token)
-                .getBody();
-        return claims.getExpiration().getTime();
+        return PARSER.parseClaimsJws(token).getBody().getExpiration().getTime();
     }
 
 }
@@ -1,94 +1,120 @@
 package lostandfound.config.utils;
-import io.github.cdimascio.dotenv.Dotenv;
+import io.vertx.core.Future;
 import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonObject;
+import io.vertx.ext.mail.LoginOption;
 import io.vertx.ext.mail.MailClient;
 import io.vertx.ext.mail.MailConfig;
 import io.vertx.ext.mail.MailMessage;
 import io.vertx.ext.mail.StartTLSOptions;
+import lostandfound.config.AppConfig;
+import lostandfound.config.DatabaseConfig;
 
 
 
+// Handlers only enqueue mail into the "mail_outbox" collection; MailOutboxWorker delivers it.
 public class MailUtil {
-    private static final MailClient mailClient;
-    private static final String senderAddress;
-
-    static {
-        Dotenv dotenv = Dotenv.load();
-
-        String username = dotenv.get("MAIL_USERNAME");
-        String password = dotenv.get("MAIL_PASSWORD");
-        String senderName = dotenv.get("MAIL_SENDER_NAME");
+    public static final String OUTBOX = "mail_outbox";
+    // Event bus address used to wake the outbox worker after an enqueue
+    public static final String WAKE_ADDRESS = "mail.outbox.wake";
+
+    // Outbox message lifecycle: pending -> sending -> sent, or back to pending with backoff, or dead
+    public static final String PENDING = "pending";
+    public static final String SENDING = "sending";
+    public static final String SENT = "sent";
+    public static final String DEAD = "dead";
+
+    private static Vertx vertx;
+    private static MailClient mailClient;
+    private static String senderAddress;
+
+    // Uses the application's Vertx instance; only the first call creates the client
+    public static synchronized void init(Vertx vertxInstance) {
+        if (mailClient != null) {
+            return;
+        }
+        vertx = vertxInstance;
+
+        String username = AppConfig.get("MAIL_USERNAME");
+        String password = AppConfig.get("MAIL_PASSWORD");
+        String senderName = AppConfig.get("MAIL_SENDER_NAME");
 
         senderAddress = senderName + " <" + username + ">";
 
+        // MAIL_HOST/MAIL_PORT/MAIL_STARTTLS can point at a local fake SMTP server for testing
         MailConfig config = new MailConfig()
-                .setHostname("smtp.gmail.com")
-                .setPort(587)
-                .setStarttls(StartTLSOptions.REQUIRED)
-                .setUsername(username)
-                .setPassword(password);
-
-        mailClient = MailClient.createShared(Vertx.vertx(), config, "mailPool");
+                .setHostname(AppConfig.get("MAIL_HOST", "smtp.gmail.com"))
+                .setPort(AppConfig.getInt("MAIL_PORT", 587))
+                .setStarttls(StartTLSOptions.valueOf(AppConfig.get("MAIL_STARTTLS", "REQUIRED")))
+                .setMaxPoolSize(AppConfig.getInt("MAIL_POOL_SIZE", 4))
+                .setKeepAlive(true); // reuse SMTP sessions across a batch instead of a handshake per mail
+
+        if (username == null || username.isBlank()) {
+            config.setLogin(LoginOption.DISABLED);
+        } else {
+            config.setUsername(username).setPassword(password);
+        }
+
+        mailClient = MailClient.createShared(vertx, config, "mailPool");
     }
 
 
-    public static void sendVerificationEmail( String to, String token) {
+    public static Future<Void> sendVerificationEmail( String to, String token) {
         String verifyLink = "http://localhost:8888/api/auth/verify/" + token;
 
-        MailMessage message = new MailMessage()
-                .setFrom(senderAddress)
-                .setTo(to)
-                .setSubject("Verify your email")
-                .setText("Click the link below to verify your email:\n\n"
+        return enqueue("verification", to, "Verify your email",
+                "Click the link below to verify your email:\n\n"
                         + verifyLink +
                         "\n\nNote: This link is valid for only 10 minutes. ");
-
-        mailClient.sendMail(message, result -> {
-            if (result.succeeded()) {
-                System.out.println("Verification email sent to: " + to);
-            } else {
-                System.out.println("Failed to send email: " + result.cause().getMessage());
-            }
-        });
     }
 
-    public static void sendContactMessage( String to, String from, String itemTitle, String userMessage) {
-        MailMessage message = new MailMessage()
-                .setFrom(senderAddress)
-                .setTo(to)
-                .setSubject("Someone responded to your Lost & Found post")
-                .setText("Message from: " + from + "\n\n" +
+    public static Future<Void> sendContactMessage( String to, String from, String itemTitle, String userMessage) {
+        return enqueue("contact", to, "Someone responded to your Lost & Found post",
+                "Message from: " + from + "\n\n" +
                         "Regarding: " + itemTitle + "\n\n" +
                         "Message:\n" + userMessage);
-
-        mailClient.sendMail(message, result -> {
-            if (result.succeeded()) {
-                System.out.println("Contact email sent successfully.");
-            } else {
-                System.err.println("Failed to send contact email: " + result.cause());
-            }
-        });
     }
-    public static void sendForgotPasswordEmail( String to, String token) {
+
+    public static Future<Void> sendForgotPasswordEmail( String to, String token) {
         String resetLink = "http://localhost:4200/reset?token=" + token;
 
-        MailMessage message = new MailMessage()
-                .setFrom(senderAddress)
-                .setTo(to)
-                .setSubject("Reset your password")
-                .setText("You requested a password reset. Click the link below to reset your password:\n\n"
+        return enqueue("passwordReset", to, "Reset your password",
+                "You requested a password reset. Click the link below to reset your password:\n\n"
                         + resetLink +
                         "\n\nNote: This link is valid for only 10 minutes. "
                         + "If it expires, please request a new one.");
-
-        mailClient.sendMail(message, result -> {
-            if (result.succeeded()) {
-                System.out.println("Password reset email sent to: " + to);
-            } else {
-                System.err.println("Failed to send password reset email: " + result.cause().getMessage());
-            }
-        });
     }
-}
 
+    // Sends one outbox document over the pooled SMTP client (called by the worker only)
+    public static Future<Void> deliver(JsonObject outboxMessage) {
+        MailMessage message = new MailMessage()
+                .setFrom(senderAddress)
+                .setTo(outboxMessage.getString("to"))
+                .setSubject(outboxMessage.getString("subject"))
+                .setText(outboxMessage.getString("text"));
+
+        long start = System.nanoTime();
+        return mailClient.sendMail(message)
+                .andThen(ar -> Metrics.observeNanos("smtp_send_seconds", "SMTP sends by outcome", start,
+                        "outcome", ar.succeeded() ? "sent" : "failed"))
+                .mapEmpty();
+    }
 
+    private static Future<Void> enqueue(String kind, String to, String subject, String text) {
+        long now = System.currentTimeMillis();
+        JsonObject message = new JsonObject()
+                .put("kind", kind)
+                .put("to", to)
+                .put("subject", subject)
+                .put("text", text)
+                .put("status", PENDING)
+                .put("attempts", 0)
+                .put("createdAt", now)
+                .put("nextAttemptAt", now);
+
+        return DatabaseConfig.getMongoClient(vertx).insert(OUTBOX, message)
+                .onSuccess(id -> vertx.eventBus().send(WAKE_ADDRESS, null))
+                .onFailure(err -> System.err.println("Failed to queue " + kind + " email to " + to + ": " + err.getMessage()))
+                .mapEmpty();
+    }
+}
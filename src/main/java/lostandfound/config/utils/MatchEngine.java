@@ -0,0 +1,267 @@
+package lostandfound.config.utils;
+
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
+import io.vertx.core.WorkerExecutor;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import io.vertx.ext.mongo.BulkOperation;
+import io.vertx.ext.mongo.FindOptions;
+import io.vertx.ext.mongo.MongoClient;
+import lostandfound.config.AppConfig;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Pairs lost items with found ones as they are posted. Candidates of the opposite status are narrowed
+// in Mongo by blocking keys (same category, unclaimed, posted within MATCH_WINDOW_DAYS, newest
+// MATCH_CANDIDATES only), so a post costs the same however big the collection grows. They are scored on
+// a small worker pool by text, location and date similarity, and the best are upserted into "matches"
+// with _id "<lostId>:<foundId>", so scoring the same pair twice just overwrites it.
+public class MatchEngine {
+    public static final String COLLECTION = "matches";
+
+    private static final int POOL_SIZE = AppConfig.getInt("MATCH_WORKERS", 1);
+    private static final int MAX_QUEUED = AppConfig.getInt("MATCH_QUEUE_SIZE", 200);
+    private static final int CANDIDATES = AppConfig.getInt("MATCH_CANDIDATES", 300);
+    private static final int KEEP = AppConfig.getInt("MATCH_KEEP", 10);
+    private static final long WINDOW_MS = TimeUnit.DAYS.toMillis(AppConfig.getLong("MATCH_WINDOW_DAYS", 30));
+    private static final double MIN_SCORE = Double.parseDouble(AppConfig.get("MATCH_MIN_SCORE", "0.3"));
+
+    private static final double TEXT_WEIGHT = 0.6;
+    private static final double LOCATION_WEIGHT = 0.25;
+    private static final double DATE_WEIGHT = 0.15;
+    private static final int TITLE_TOKEN_WEIGHT = 2;
+
+    private static final JsonObject CANDIDATE_FIELDS = new JsonObject()
+            .put("title", 1).put("description", 1).put("location", 1).put("createdAt", 1);
+    private static final JsonObject ITEM_PROJECTION = new JsonObject()
+            .put("photoData", 0)
+            .put("claimedRequests", 0);
+    private static final Set<String> STOP_WORDS = Set.of("a", "an", "and", "at", "in", "is", "it", "my", "near",
+            "of", "on", "or", "the", "to", "with", "lost", "found", "someone", "left");
+
+    private static final AtomicInteger queued = new AtomicInteger();
+    private static volatile WorkerExecutor executor;
+
+    // Called after an item is saved; fire and forget
+    public static void schedule(Vertx vertx, MongoClient mongoClient, JsonObject item) {
+        String opposite = opposite(item.getString("status"));
+        Object id = item.getValue("_id");
+        String categoryId = item.getString("categoryId");
+        if (opposite == null || id == null || categoryId == null) {
+            return;
+        }
+        if (queued.incrementAndGet() > MAX_QUEUED) {
+            queued.decrementAndGet();
+            System.err.println("⚠️ Match queue full, skipping item " + id);
+            return;
+        }
+
+        long createdAt = item.getLong("createdAt", System.currentTimeMillis());
+        JsonObject query = new JsonObject()
+                .put("status", opposite)
+                .put("categoryId", categoryId)
+                .put("isClaimed", new JsonObject().put("$ne", true))
+                .put("createdAt", new JsonObject().put("$gte", createdAt - WINDOW_MS).put("$lte", createdAt + WINDOW_MS));
+        FindOptions options = new FindOptions()
+                .setFields(CANDIDATE_FIELDS)
+                .setSort(new JsonObject().put("createdAt", -1))
+                .setLimit(CANDIDATES);
+
+        long start = System.nanoTime();
+        mongoClient.findWithOptions("items", query, options)
+                .compose(candidates -> executor(vertx).<List<JsonObject>>executeBlocking(
+                        () -> score(item, candidates), false))
+                .compose(matches -> save(mongoClient, matches))
+                .onComplete(res -> {
+                    queued.decrementAndGet();
+                    Metrics.observeNanos("item_matching_seconds", "Time to find and store matches for a new item",
+                            start, "outcome", res.succeeded() ? "success" : "failure");
+                    if (res.failed()) {
+                        System.err.println("Failed to match item " + id + ": " + res.cause().getMessage());
+                    }
+                });
+    }
+
+    // Best matches for an item, each {score, item}; items that are gone or claimed are left out
+    public static Future<JsonArray> matchesFor(MongoClient mongoClient, JsonObject item, int limit) {
+        String id = String.valueOf(item.getValue("_id"));
+        boolean lost = "lost".equals(item.getString("status"));
+        String side = lost ? "lostId" : "foundId";
+        String other = lost ? "foundId" : "lostId";
+
+        FindOptions options = new FindOptions()
+                .setSort(new JsonObject().put("score", -1))
+                .setLimit(limit);
+        return mongoClient.findWithOptions(COLLECTION, new JsonObject().put(side, id), options)
+                .compose(matches -> {
+                    if (matches.isEmpty()) {
+                        return Future.succeededFuture(new JsonArray());
+                    }
+                    JsonArray ids = new JsonArray();
+                    matches.forEach(match -> ids.add(match.getString(other)));
+                    JsonObject query = new JsonObject()
+                            .put("_id", new JsonObject().put("$in", ids))
+                            .put("isClaimed", new JsonObject().put("$ne", true));
+                    return mongoClient.findWithOptions("items", query, new FindOptions().setFields(ITEM_PROJECTION))
+                            .map(items -> {
+                                Map<String, JsonObject> byId = new HashMap<>();
+                                items.forEach(found -> byId.put(String.valueOf(found.getValue("_id")), found));
+                                JsonArray result = new JsonArray();
+                                for (JsonObject match : matches) {
+                                    JsonObject matched = byId.get(match.getString(other));
+                                    if (matched != null) {
+                                        result.add(new JsonObject()
+                                                .put("score", match.getDouble("score"))
+                                                .put("reasons", match.getJsonObject("reasons"))
+                                                .put("item", matched));
+                                    }
+                                }
+                                return result;
+                            });
+                });
+    }
+
+    // Drops every match involving the given item ids
+    public static Future<Void> forget(MongoClient mongoClient, JsonArray ids) {
+        JsonObject in = new JsonObject().put("$in", ids);
+        JsonObject query = new JsonObject().put("$or", new JsonArray()
+                .add(new JsonObject().put("lostId", in))
+                .add(new JsonObject().put("foundId", in)));
+        return mongoClient.removeDocuments(COLLECTION, query).mapEmpty();
+    }
+
+    public static int queueDepth() {
+        return queued.get();
+    }
+
+    private static List<JsonObject> score(JsonObject item, List<JsonObject> candidates) {
+        String id = String.valueOf(item.getValue("_id"));
+        boolean lost = "lost".equals(item.getString("status"));
+        Map<String, Integer> itemText = textTokens(item);
+        Map<String, Integer> itemLocation = tokens(item.getString("location"), 1);
+        long itemCreatedAt = item.getLong("createdAt", System.currentTimeMillis());
+        long now = System.currentTimeMillis();
+
+        List<JsonObject> matches = new ArrayList<>();
+        for (JsonObject candidate : candidates) {
+            double text = similarity(itemText, textTokens(candidate));
+            double location = similarity(itemLocation, tokens(candidate.getString("location"), 1));
+            if (text == 0 && location == 0) {
+                continue; // same category and date alone isn't a match
+            }
+            long gap = Math.abs(itemCreatedAt - candidate.getLong("createdAt", itemCreatedAt));
+            double date = 1.0 - Math.min(1.0, (double) gap / WINDOW_MS);
+
+            double score = TEXT_WEIGHT * text + LOCATION_WEIGHT * location + DATE_WEIGHT * date;
+            if (score < MIN_SCORE) {
+                continue;
+            }
+            String candidateId = String.valueOf(candidate.getValue("_id"));
+            String lostId = lost ? id : candidateId;
+            String foundId = lost ? candidateId : id;
+            matches.add(new JsonObject()
+                    .put("_id", lostId + ":" + foundId)
+                    .put("lostId", lostId)
+                    .put("foundId", foundId)
+                    .put("categoryId", item.getString("categoryId"))
+                    .put("score", round(score))
+                    .put("reasons", new JsonObject()
+                            .put("text", round(text))
+                            .put("location", round(location))
+                            .put("date", round(date)))
+                    .put("createdAt", now));
+        }
+
+        matches.sort(Comparator.comparingDouble((JsonObject match) -> match.getDouble("score")).reversed());
+        return matches.size() > KEEP ? new ArrayList<>(matches.subList(0, KEEP)) : matches;
+    }
+
+    private static Future<Void> save(MongoClient mongoClient, List<JsonObject> matches) {
+        if (matches.isEmpty()) {
+            return Future.succeededFuture();
+        }
+        List<BulkOperation> upserts = new ArrayList<>();
+        for (JsonObject match : matches) {
+            upserts.add(BulkOperation.createReplace(new JsonObject().put("_id", match.getString("_id")), match, true));
+        }
+        return mongoClient.bulkWrite(COLLECTION, upserts).mapEmpty();
+    }
+
+    // Title words count double; very common words are ignored and a plural "s" is dropped
+    private static Map<String, Integer> textTokens(JsonObject item) {
+        Map<String, Integer> tokens = tokens(item.getString("description"), 1);
+        tokens(item.getString("title"), TITLE_TOKEN_WEIGHT).forEach((token, weight) -> tokens.merge(token, weight, Math::max));
+        return tokens;
+    }
+
+    private static Map<String, Integer> tokens(String text, int weight) {
+        Map<String, Integer> tokens = new HashMap<>();
+        if (text == null) {
+            return tokens;
+        }
+        for (String token : SearchIndex.tokenize(text).keySet()) {
+            if (token.length() < 2 || STOP_WORDS.contains(token)) {
+                continue;
+            }
+            if (token.length() > 3 && token.endsWith("s") && !token.endsWith("ss")) {
+                token = token.substring(0, token.length() - 1);
+            }
+            tokens.put(token, weight);
+        }
+        return tokens;
+    }
+
+    // Weighted Jaccard: shared weight over combined weight, 0..1
+    private static double similarity(Map<String, Integer> a, Map<String, Integer> b) {
+        if (a.isEmpty() || b.isEmpty()) {
+            return 0;
+        }
+        double shared = 0;
+        double total = 0;
+        for (Map.Entry<String, Integer> entry : a.entrySet()) {
+            Integer other = b.get(entry.getKey());
+            if (other == null) {
+                total += entry.getValue();
+            } else {
+                shared += Math.min(entry.getValue(), other);
+                total += Math.max(entry.getValue(), other);
+            }
+        }
+        for (Map.Entry<String, Integer> entry : b.entrySet()) {
+            if (!a.containsKey(entry.getKey())) {
+                total += entry.getValue();
+            }
+        }
+        return shared / total;
+    }
+
+    private static String opposite(String status) {
+        if ("lost".equals(status)) {
+            return "found";
+        }
+        return "found".equals(status) ? "lost" : null;
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 1000) / 1000.0;
+    }
+
+    private static WorkerExecutor executor(Vertx vertx) {
+        if (executor == null) {
+            synchronized (MatchEngine.class) {
+                if (executor == null) {
+                    executor = vertx.createSharedWorkerExecutor("item-matching", POOL_SIZE);
+                }
+            }
+        }
+        return executor;
+    }
+}
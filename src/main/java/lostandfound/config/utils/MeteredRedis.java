@@ -0,0 +1,44 @@
+package lostandfound.config.utils;
+
+import io.vertx.core.Future;
+import io.vertx.redis.client.Redis;
+import io.vertx.redis.client.RedisConnection;
+import io.vertx.redis.client.Request;
+import io.vertx.redis.client.Response;
+
+import java.util.List;
+
+// Wraps the shared client so every RedisAPI call is timed per command
+public class MeteredRedis implements Redis {
+    private static final String HELP = "Redis commands by command and outcome";
+
+    private final Redis delegate;
+
+    public MeteredRedis(Redis delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public Future<RedisConnection> connect() {
+        return delegate.connect();
+    }
+
+    @Override
+    public void close() {
+        delegate.close();
+    }
+
+    @Override
+    public Future<Response> send(Request request) {
+        long start = System.nanoTime();
+        return delegate.send(request).andThen(ar -> Metrics.observeNanos("redis_command_seconds", HELP, start,
+                "command", request.command().toString().toUpperCase(), "outcome", ar.succeeded() ? "success" : "failure"));
+    }
+
+    @Override
+    public Future<List<Response>> batch(List<Request> requests) {
+        long start = System.nanoTime();
+        return delegate.batch(requests).andThen(ar -> Metrics.observeNanos("redis_command_seconds", HELP, start,
+                "command", "BATCH", "outcome", ar.succeeded() ? "success" : "failure"));
+    }
+}
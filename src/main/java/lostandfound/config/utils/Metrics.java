@@ -0,0 +1,151 @@
+package lostandfound.config.utils;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+// In-process metric registry rendered in the Prometheus text format (see MetricsServer).
+// Labels are passed as name/value pairs: observe("x_seconds", "help", 0.01, "route", "/api/items").
+public class Metrics {
+    // Seconds; covers a cached page (~0.5ms) up to a stuck SMTP session
+    private static final double[] LATENCY_BUCKETS = {0.0005, 0.001, 0.0025, 0.005, 0.01, 0.025, 0.05, 0.1, 0.25,
+            0.5, 1, 2.5, 5, 10};
+
+    private static final Map<String, Family> families = new ConcurrentSkipListMap<>();
+
+    public static void observe(String name, String help, double seconds, String... labels) {
+        Histogram histogram = (Histogram) family(name, help, "histogram")
+                .series.computeIfAbsent(labelString(labels), k -> new Histogram());
+        histogram.observe(seconds);
+    }
+
+    public static void observeNanos(String name, String help, long startNanos, String... labels) {
+        observe(name, help, (System.nanoTime() - startNanos) / 1e9, labels);
+    }
+
+    public static void increment(String name, String help, String... labels) {
+        ((LongAdder) family(name, help, "counter")
+                .series.computeIfAbsent(labelString(labels), k -> new LongAdder())).increment();
+    }
+
+    // Read at scrape time, e.g. a queue size
+    public static void gauge(String name, String help, Supplier<Number> value, String... labels) {
+        family(name, help, "gauge").series.put(labelString(labels), value);
+    }
+
+    // A counter someone else keeps (GC totals from the JVM)
+    public static void counter(String name, String help, Supplier<Number> value, String... labels) {
+        family(name, help, "counter").series.put(labelString(labels), value);
+    }
+
+    public static String scrape() {
+        StringBuilder out = new StringBuilder(16 * 1024);
+        for (Family family : families.values()) {
+            out.append("# HELP ").append(family.name).append(' ').append(family.help).append('\n');
+            out.append("# TYPE ").append(family.name).append(' ').append(family.type).append('\n');
+            family.series.forEach((labels, series) -> {
+                if (series instanceof Histogram histogram) {
+                    histogram.write(out, family.name, labels);
+                } else if (series instanceof LongAdder adder) {
+                    sample(out, family.name, labels, adder.sum());
+                } else {
+                    Number value = ((Supplier<?>) series).get() instanceof Number n ? n : 0;
+                    sample(out, family.name, labels, value.doubleValue());
+                }
+            });
+        }
+        return out.toString();
+    }
+
+    private static Family family(String name, String help, String type) {
+        Family family = families.computeIfAbsent(name, n -> new Family(n, help, type));
+        if (!family.type.equals(type)) {
+            throw new IllegalStateException(name + " is a " + family.type + ", not a " + type);
+        }
+        return family;
+    }
+
+    // "route", "/api/items" -> route="/api/items"
+    private static String labelString(String... labels) {
+        if (labels.length % 2 != 0) {
+            throw new IllegalArgumentException("Labels must be name/value pairs");
+        }
+        StringBuilder out = new StringBuilder();
+        for (int i = 0; i < labels.length; i += 2) {
+            if (i > 0) {
+                out.append(',');
+            }
+            out.append(labels[i]).append("=\"");
+            String value = labels[i + 1] == null ? "" : labels[i + 1];
+            for (int c = 0; c < value.length(); c++) {
+                char ch = value.charAt(c);
+                if (ch == '\\' || ch == '"') {
+                    out.append('\\').append(ch);
+                } else if (ch == '\n') {
+                    out.append("\\n");
+                } else {
+                    out.append(ch);
+                }
+            }
+            out.append('"');
+        }
+        return out.toString();
+    }
+
+    private static void sample(StringBuilder out, String name, String labels, double value) {
+        out.append(name);
+        if (!labels.isEmpty()) {
+            out.append('{').append(labels).append('}');
+        }
+        out.append(' ').append(format(value)).append('\n');
+    }
+
+    private static String format(double value) {
+        if (value == Math.rint(value) && !Double.isInfinite(value) && Math.abs(value) < 1e15) {
+            return Long.toString((long) value);
+        }
+        return Double.toString(value);
+    }
+
+    private record Family(String name, String help, String type, Map<String, Object> series) {
+        Family(String name, String help, String type) {
+            this(name, help, type, new ConcurrentSkipListMap<>());
+        }
+    }
+
+    // Per-bucket adders, made cumulative when scraped
+    private static final class Histogram {
+        private final LongAdder[] buckets = new LongAdder[LATENCY_BUCKETS.length + 1];
+        private final DoubleAdder sum = new DoubleAdder();
+
+        Histogram() {
+            for (int i = 0; i < buckets.length; i++) {
+                buckets[i] = new LongAdder();
+            }
+        }
+
+        void observe(double seconds) {
+            int i = 0;
+            while (i < LATENCY_BUCKETS.length && seconds > LATENCY_BUCKETS[i]) {
+                i++;
+            }
+            buckets[i].increment();
+            sum.add(seconds);
+        }
+
+        void write(StringBuilder out, String name, String labels) {
+            String prefix = labels.isEmpty() ? "" : labels + ",";
+            long cumulative = 0;
+            for (int i = 0; i < LATENCY_BUCKETS.length; i++) {
+                cumulative += buckets[i].sum();
+                sample(out, name + "_bucket", prefix + "le=\"" + LATENCY_BUCKETS[i] + "\"", cumulative);
+            }
+            cumulative += buckets[LATENCY_BUCKETS.length].sum();
+            sample(out, name + "_bucket", prefix + "le=\"+Inf\"", cumulative);
+            sample(out, name + "_sum", labels, sum.sum());
+            sample(out, name + "_count", labels, cumulative);
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package lostandfound.config.utils;
+
+import com.mongodb.event.CommandFailedEvent;
+import com.mongodb.event.CommandListener;
+import com.mongodb.event.CommandStartedEvent;
+import com.mongodb.event.CommandSucceededEvent;
+import com.mongodb.event.ConnectionCheckOutFailedEvent;
+import com.mongodb.event.ConnectionCheckOutStartedEvent;
+import com.mongodb.event.ConnectionCheckedInEvent;
+import com.mongodb.event.ConnectionCheckedOutEvent;
+import com.mongodb.event.ConnectionPoolListener;
+import org.bson.BsonDocument;
+import org.bson.BsonValue;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Driver-level listener, so every Mongo call in the app is timed without touching the handlers
+public class MongoMetrics implements CommandListener, ConnectionPoolListener {
+    private static final String HELP = "MongoDB commands by command, collection and outcome";
+
+    // Request id -> collection, from the started event until the command completes
+    private final Map<Integer, String> collections = new ConcurrentHashMap<>();
+    private final AtomicInteger inUse = new AtomicInteger();
+    private final AtomicInteger waiting = new AtomicInteger();
+
+    public MongoMetrics() {
+        Metrics.gauge("mongodb_pool_connections_in_use", "Connections checked out of the driver pool", inUse::get);
+        Metrics.gauge("mongodb_pool_waiting", "Operations waiting for a pooled connection", waiting::get);
+    }
+
+    @Override
+    public void commandStarted(CommandStartedEvent event) {
+        collections.put(event.getRequestId(), collection(event.getCommandName(), event.getCommand()));
+    }
+
+    @Override
+    public void commandSucceeded(CommandSucceededEvent event) {
+        record(event.getRequestId(), event.getCommandName(), event.getElapsedTime(TimeUnit.NANOSECONDS), "success");
+    }
+
+    @Override
+    public void commandFailed(CommandFailedEvent event) {
+        record(event.getRequestId(), event.getCommandName(), event.getElapsedTime(TimeUnit.NANOSECONDS), "failure");
+    }
+
+    @Override
+    public void connectionCheckOutStarted(ConnectionCheckOutStartedEvent event) {
+        waiting.incrementAndGet();
+    }
+
+    @Override
+    public void connectionCheckedOut(ConnectionCheckedOutEvent event) {
+        waiting.decrementAndGet();
+        inUse.incrementAndGet();
+    }
+
+    @Override
+    public void connectionCheckOutFailed(ConnectionCheckOutFailedEvent event) {
+        waiting.decrementAndGet();
+    }
+
+    @Override
+    public void connectionCheckedIn(ConnectionCheckedInEvent event) {
+        inUse.decrementAndGet();
+    }
+
+    private void record(int requestId, String command, long nanos, String outcome) {
+        String collection = collections.remove(requestId);
+        Metrics.observe("mongodb_command_seconds", HELP, nanos / 1e9,
+                "command", command, "collection", collection == null ? "" : collection, "outcome", outcome);
+    }
+
+    // {find: "items", ...} names its collection in the first field; getMore keeps it in "collection"
+    private static String collection(String command, BsonDocument body) {
+        BsonValue value = command.equals("getMore") ? body.get("collection") : body.get(command);
+        return value != null && value.isString() ? value.asString().getValue() : "";
+    }
+}
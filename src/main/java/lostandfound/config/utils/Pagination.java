@@ -0,0 +1,135 @@
+package lostandfound.config.utils;
+
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+// Keyset (cursor) pagination helpers for item listings.
+// A cursor holds the sort-key values of the last item on a page; the next page
+// continues strictly after that tuple, so the cost per page does not depend on how deep it is.
+public class Pagination {
+    public static final int DEFAULT_LIMIT = 20;
+    public static final int MAX_LIMIT = 100;
+
+    // Large or private fields that list pages leave out unless asked for explicitly
+    private static final JsonObject DEFAULT_PROJECTION = new JsonObject()
+            .put("photoData", 0)
+            .put("claimedRequests", 0);
+
+    // Fields a client may pick with ?fields=
+    private static final Set<String> SELECTABLE_FIELDS = Set.of(
+            "title", "description", "status", "isClaimed", "claimedAt", "categoryId",
+            "location", "contact", "postedBy", "createdAt", "photoUrl", "thumbUrl", "mediumUrl");
+
+    public static int parseLimit(String raw) {
+        if (raw == null || raw.isBlank()) {
+            return DEFAULT_LIMIT;
+        }
+        try {
+            int limit = Integer.parseInt(raw.trim());
+            return Math.max(1, Math.min(limit, MAX_LIMIT));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid limit");
+        }
+    }
+
+    // Sort on the requested field, then createdAt/_id so that every item has a unique position
+    public static JsonObject sort(String field, int direction) {
+        JsonObject sort = new JsonObject();
+        if (field != null && !field.equals("createdAt") && !field.equals("_id")) {
+            sort.put(field, direction);
+        }
+        return sort.put("createdAt", -1).put("_id", -1);
+    }
+
+    // Default projection, or an inclusion projection of ?fields= plus whatever the sort needs
+    public static JsonObject projection(String fields, JsonObject sort) {
+        if (fields == null || fields.isBlank()) {
+            return DEFAULT_PROJECTION.copy();
+        }
+
+        JsonObject projection = new JsonObject();
+        for (String field : fields.split(",")) {
+            String name = field.trim();
+            if (SELECTABLE_FIELDS.contains(name)) {
+                projection.put(name, 1);
+            }
+        }
+        for (String key : sort.fieldNames()) {
+            projection.put(key, 1);
+        }
+        return projection;
+    }
+
+    public static String encodeCursor(JsonObject sort, JsonObject lastItem) {
+        JsonArray values = new JsonArray();
+        for (String key : sort.fieldNames()) {
+            values.add(lastItem.getValue(key));
+        }
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(values.encode().getBytes(StandardCharsets.UTF_8));
+    }
+
+    // Turns a cursor into a filter matching only items that sort after it
+    public static JsonObject afterCursor(String cursor, JsonObject sort) {
+        JsonArray values;
+        try {
+            values = new JsonArray(new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8));
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+
+        List<Map.Entry<String, Object>> keys = List.copyOf(sort.getMap().entrySet());
+        if (values.size() != keys.size()) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+        for (int i = 0; i < keys.size(); i++) {
+            if (!validCursorValue(keys.get(i).getKey(), values.getValue(i))) {
+                throw new IllegalArgumentException("Invalid cursor");
+            }
+        }
+
+        // (k1 > v1) OR (k1 = v1 AND k2 > v2) OR ...
+        JsonArray branches = new JsonArray();
+        for (int i = 0; i < keys.size(); i++) {
+            JsonObject branch = new JsonObject();
+            for (int j = 0; j < i; j++) {
+                branch.put(keys.get(j).getKey(), values.getValue(j));
+            }
+
+            String key = keys.get(i).getKey();
+            Object value = values.getValue(i);
+            boolean ascending = ((Number) keys.get(i).getValue()).intValue() > 0;
+
+            if (value == null) {
+                // Missing values sort first: everything else comes after them ascending, nothing descending
+                if (!ascending) {
+                    continue;
+                }
+                branch.put(key, new JsonObject().put("$ne", null));
+            } else {
+                branch.put(key, new JsonObject().put(ascending ? "$gt" : "$lt", value));
+            }
+            branches.add(branch);
+        }
+        return new JsonObject().put("$or", branches);
+    }
+
+    // The values go straight into the items filter, so only plain values of the sort key's type get
+    // through; an object like {"$ne": null} would be read by Mongo as an operator
+    private static boolean validCursorValue(String key, Object value) {
+        switch (key) {
+            case "_id":
+                return value instanceof String;
+            case "createdAt":
+                return value == null || value instanceof Number;
+            default:
+                return value == null || value instanceof String || value instanceof Number || value instanceof Boolean;
+        }
+    }
+}
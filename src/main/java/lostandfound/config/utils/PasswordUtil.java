@@ -1,15 +1,109 @@
 package lostandfound.config.utils;
 
 import at.favre.lib.crypto.bcrypt.BCrypt;
+import io.vertx.core.Context;
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+import io.vertx.core.Vertx;
+import lostandfound.config.AppConfig;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class PasswordUtil {
+    private static final int COST = AppConfig.getInt("BCRYPT_COST", 12);
+
+    // BCrypt at cost 12 takes hundreds of ms, so it never runs on an event loop.
+    // The queue is bounded: when it is full, callers get a RejectedExecutionException (503).
+    private static final int POOL_SIZE = AppConfig.getInt("PASSWORD_POOL_SIZE",
+            Math.max(1, Runtime.getRuntime().availableProcessors() / 2));
+    private static final int QUEUE_SIZE = AppConfig.getInt("PASSWORD_QUEUE_SIZE", 100);
+
+    private static final AtomicInteger threadCount = new AtomicInteger();
+    private static final ThreadPoolExecutor executor = new ThreadPoolExecutor(
+            POOL_SIZE, POOL_SIZE,
+            0L, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(QUEUE_SIZE),
+            runnable -> {
+                Thread thread = new Thread(runnable, "password-hasher-" + threadCount.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            },
+            new ThreadPoolExecutor.AbortPolicy());
 
     public static String hashPassword(String plainPassword) {
-        return BCrypt.withDefaults().hashToString(12, plainPassword.toCharArray());
+        return hashPassword(plainPassword, COST);
+    }
+
+    // Verification reads the cost from the hash, so existing hashes keep working when BCRYPT_COST changes
+    public static String hashPassword(String plainPassword, int cost) {
+        return BCrypt.withDefaults().hashToString(cost, plainPassword.toCharArray());
     }
 
     public static boolean verifyPassword(String plainPassword, String hashedPassword) {
         BCrypt.Result result = BCrypt.verifyer().verify(plainPassword.toCharArray(), hashedPassword);
         return result.verified;
     }
+
+    public static Future<String> hashPasswordAsync(String plainPassword) {
+        return submit(() -> hashPassword(plainPassword));
+    }
+
+    public static Future<Boolean> verifyPasswordAsync(String plainPassword, String hashedPassword) {
+        return submit(() -> verifyPassword(plainPassword, hashedPassword));
+    }
+
+    // True when the failure means the hashing pool was saturated
+    public static boolean isOverloaded(Throwable err) {
+        return err instanceof RejectedExecutionException;
+    }
+
+    public static int queueDepth() {
+        return executor.getQueue().size();
+    }
+
+    public static int activeCount() {
+        return executor.getActiveCount();
+    }
+
+    // Runs the task on the hashing pool and completes the future back on the caller's context
+    private static <T> Future<T> submit(Callable<T> task) {
+        Context context = Vertx.currentContext();
+        Promise<T> promise = Promise.promise();
+
+        try {
+            executor.execute(() -> {
+                T result = null;
+                Throwable failure = null;
+                try {
+                    result = task.call();
+                } catch (Throwable e) {
+                    failure = e;
+                }
+
+                T value = result;
+                Throwable cause = failure;
+                if (context != null) {
+                    context.runOnContext(v -> complete(promise, value, cause));
+                } else {
+                    complete(promise, value, cause);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            return Future.failedFuture(e);
+        }
+        return promise.future();
+    }
+
+    private static <T> void complete(Promise<T> promise, T value, Throwable cause) {
+        if (cause != null) {
+            promise.fail(cause);
+        } else {
+            promise.complete(value);
+        }
+    }
 }
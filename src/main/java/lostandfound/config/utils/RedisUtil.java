@@ -4,16 +4,31 @@ import io.vertx.core.Vertx;
 import io.vertx.redis.client.Redis;
 import io.vertx.redis.client.RedisAPI;
 import io.vertx.redis.client.RedisOptions;
+import lostandfound.config.AppConfig;
 
 public class RedisUtil {
     private static RedisAPI redis;
+    private static Redis client;
 
-    public static void init(Vertx vertx) {
-        Redis redisClient = Redis.createClient(vertx, new RedisOptions().setConnectionString("redis://localhost:6379"));
-        redis = RedisAPI.api(redisClient);
+    // Safe to call from every verticle instance; only the first call creates the client
+    public static synchronized void init(Vertx vertx) {
+        if (redis != null) {
+            return;
+        }
+        client = new MeteredRedis(Redis.createClient(vertx, options()));
+        redis = RedisAPI.api(client);
     }
 
-    public static RedisAPI getRedis() {
+    public static RedisOptions options() {
+        return new RedisOptions().setConnectionString(AppConfig.get("REDIS_URL", "redis://localhost:6379"));
+    }
+
+    public static synchronized RedisAPI getRedis() {
         return redis;
     }
+
+    // For pipelined batches, which RedisAPI doesn't expose
+    public static synchronized Redis getClient() {
+        return client;
+    }
 }
@@ -0,0 +1,41 @@
+package lostandfound.config.utils;
+
+import io.vertx.core.Handler;
+import io.vertx.core.http.HttpHeaders;
+import io.vertx.ext.web.RoutingContext;
+import io.vertx.ext.web.handler.BodyHandler;
+import lostandfound.config.AppConfig;
+
+// Body handling is attached per route, so GETs never buffer a body and each route gets a size cap
+// (BodyHandler answers 413 past it). File uploads never go through BodyHandler: see ImageStore.stage.
+public class RequestBodies {
+    public static final long JSON_LIMIT = AppConfig.getLong("JSON_BODY_LIMIT", 64 * 1024);
+    // POST /api/items as JSON may still carry the image as base64 photoData
+    public static final long ITEM_JSON_LIMIT = AppConfig.getLong("ITEM_JSON_BODY_LIMIT", 8L * 1024 * 1024);
+    public static final long MAX_IMAGE_BYTES = AppConfig.getLong("MAX_IMAGE_BYTES", 5L * 1024 * 1024);
+
+    public static Handler<RoutingContext> json() {
+        return json(JSON_LIMIT);
+    }
+
+    public static Handler<RoutingContext> json(long limit) {
+        return BodyHandler.create(false).setBodyLimit(limit);
+    }
+
+    // Multipart requests are left unread for the handler to stream; anything else is buffered up to the limit
+    public static Handler<RoutingContext> jsonOrMultipart(long limit) {
+        Handler<RoutingContext> json = json(limit);
+        return ctx -> {
+            if (isMultipart(ctx)) {
+                ctx.next();
+            } else {
+                json.handle(ctx);
+            }
+        };
+    }
+
+    public static boolean isMultipart(RoutingContext ctx) {
+        String contentType = ctx.request().getHeader(HttpHeaders.CONTENT_TYPE);
+        return contentType != null && contentType.toLowerCase().startsWith("multipart/form-data");
+    }
+}
@@ -0,0 +1,220 @@
+package lostandfound.config.utils;
+
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+import io.vertx.core.json.JsonObject;
+import io.vertx.ext.mongo.FindOptions;
+import io.vertx.ext.mongo.MongoClient;
+import io.vertx.core.streams.ReadStream;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// In-memory inverted index over items for /api/search.
+// Built once from Mongo at startup and then kept current by the item write paths,
+// so a search costs a few map lookups instead of a regex scan of the collection.
+public class SearchIndex {
+    // Field -> weight of a token found in that field
+    private static final Map<String, Integer> FIELD_WEIGHTS = Map.of(
+            "title", 3,
+            "location", 2,
+            "description", 1);
+
+    // Same fields the list endpoints leave out
+    private static final JsonObject PROJECTION = new JsonObject()
+            .put("photoData", 0)
+            .put("claimedRequests", 0);
+
+    private record Entry(JsonObject item, Map<String, Integer> tokens, long createdAt) {}
+
+    private static final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private static final Map<String, Entry> entries = new HashMap<>();
+    private static final TreeMap<String, Map<String, Integer>> postings = new TreeMap<>(); // token -> (id -> weight)
+
+    // While the initial load runs, live writes win over the (older) snapshot being loaded
+    private static final Set<String> removedWhileLoading = new HashSet<>();
+    private static volatile boolean loading;
+    private static volatile boolean ready;
+
+    public static boolean isReady() {
+        return ready;
+    }
+
+    public static Future<Void> load(MongoClient mongoClient) {
+        Promise<Void> promise = Promise.promise();
+        loading = true;
+
+        FindOptions options = new FindOptions().setFields(PROJECTION).setBatchSize(500);
+        ReadStream<JsonObject> stream = mongoClient.findBatchWithOptions("items", new JsonObject(), options);
+
+        stream.exceptionHandler(err -> {
+            loading = false;
+            promise.tryFail(err);
+        });
+        stream.handler(item -> index(item, true));
+        stream.endHandler(v -> {
+            lock.writeLock().lock();
+            try {
+                removedWhileLoading.clear();
+                loading = false;
+                ready = true;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            System.out.println("🔎 Search index ready with " + size() + " items");
+            promise.tryComplete();
+        });
+        return promise.future();
+    }
+
+    public static void put(JsonObject item) {
+        index(item, false);
+    }
+
+    // Applies a partial change (e.g. isClaimed) to an indexed item
+    public static void update(String id, JsonObject changes) {
+        lock.writeLock().lock();
+        try {
+            Entry entry = entries.get(id);
+            if (entry != null) {
+                JsonObject updated = entry.item().copy().mergeIn(changes);
+                removeLocked(id);
+                addLocked(id, updated);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public static void remove(String id) {
+        lock.writeLock().lock();
+        try {
+            removeLocked(id);
+            if (loading) {
+                removedWhileLoading.add(id);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Every query token must match a token in the item, either exactly or as a prefix.
+    // Exact matches score double; ties go to the newest item.
+    public static List<JsonObject> search(String query, int limit) {
+        List<String> queryTokens = new ArrayList<>(tokenize(query).keySet());
+        if (queryTokens.isEmpty()) {
+            return List.of();
+        }
+
+        lock.readLock().lock();
+        try {
+            Map<String, Integer> scores = null;
+            for (String queryToken : queryTokens) {
+                Map<String, Integer> tokenScores = new HashMap<>();
+                for (Map.Entry<String, Map<String, Integer>> posting
+                        : postings.subMap(queryToken, true, queryToken + Character.MAX_VALUE, false).entrySet()) {
+                    int factor = posting.getKey().equals(queryToken) ? 2 : 1;
+                    posting.getValue().forEach((id, weight) -> tokenScores.merge(id, weight * factor, Math::max));
+                }
+
+                if (scores == null) {
+                    scores = tokenScores;
+                } else {
+                    scores.keySet().retainAll(tokenScores.keySet());
+                    scores.replaceAll((id, score) -> score + tokenScores.get(id));
+                }
+                if (scores.isEmpty()) {
+                    return List.of();
+                }
+            }
+
+            return scores.entrySet().stream()
+                    .sorted(Comparator.<Map.Entry<String, Integer>>comparingInt(Map.Entry::getValue).reversed()
+                            .thenComparing(e -> entries.get(e.getKey()).createdAt(), Comparator.reverseOrder()))
+                    .limit(limit)
+                    .map(e -> entries.get(e.getKey()).item())
+                    .toList();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public static int size() {
+        lock.readLock().lock();
+        try {
+            return entries.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Lowercased alphanumeric runs -> highest field weight they appear with
+    public static Map<String, Integer> tokenize(String text) {
+        Map<String, Integer> tokens = new HashMap<>();
+        addTokens(tokens, text, 1);
+        return tokens;
+    }
+
+    private static void index(JsonObject item, boolean fromSnapshot) {
+        Object rawId = item.getValue("_id");
+        if (rawId == null) {
+            return;
+        }
+        String id = rawId.toString();
+
+        lock.writeLock().lock();
+        try {
+            if (fromSnapshot && (entries.containsKey(id) || removedWhileLoading.contains(id))) {
+                return; // a live write already handled this item
+            }
+            removeLocked(id);
+            addLocked(id, item);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private static void addLocked(String id, JsonObject item) {
+        Map<String, Integer> tokens = new HashMap<>();
+        FIELD_WEIGHTS.forEach((field, weight) -> addTokens(tokens, item.getString(field), weight));
+
+        entries.put(id, new Entry(item, tokens, item.getLong("createdAt", 0L)));
+        tokens.forEach((token, weight) -> postings.computeIfAbsent(token, t -> new HashMap<>()).put(id, weight));
+    }
+
+    private static void removeLocked(String id) {
+        Entry entry = entries.remove(id);
+        if (entry == null) {
+            return;
+        }
+        for (String token : entry.tokens().keySet()) {
+            Map<String, Integer> ids = postings.get(token);
+            if (ids != null) {
+                ids.remove(id);
+                if (ids.isEmpty()) {
+                    postings.remove(token);
+                }
+            }
+        }
+    }
+
+    private static void addTokens(Map<String, Integer> tokens, String text, int weight) {
+        if (text == null) {
+            return;
+        }
+        for (String token : text.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}]+")) {
+            if (!token.isEmpty()) {
+                tokens.merge(token, weight, Math::max);
+            }
+        }
+    }
+}
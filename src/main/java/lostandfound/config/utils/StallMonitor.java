@@ -0,0 +1,274 @@
+package lostandfound.config.utils;
+
+import io.vertx.core.Context;
+import io.vertx.core.impl.VertxThread;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import io.vertx.ext.web.Route;
+import io.vertx.ext.web.RoutingContext;
+import lostandfound.config.AppConfig;
+import lostandfound.config.middleware.RequestMetrics;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+// Finds event-loop stalls and who caused them. A watchdog thread checks how long each event loop has
+// been inside its current task (Vert.x stamps the start of every dispatch); once a task goes over
+// STALL_BUDGET_MS it samples the loop's stack until the task ends. Each stall is attributed to the
+// route being dispatched (see track) and to the innermost app frame in the samples, which also
+// covers Mongo/Redis callbacks that run after the route handler has returned. Each verticle registers
+// its own event loop (watchCurrentLoop), since a verticle instance keeps its loop for life.
+public class StallMonitor {
+    private static final long BUDGET_NANOS = TimeUnit.MILLISECONDS.toNanos(AppConfig.getLong("STALL_BUDGET_MS", 50));
+    private static final long SAMPLE_MS = AppConfig.getLong("STALL_SAMPLE_MS", 10);
+    private static final int MAX_SAMPLES = 20;
+    private static final int MAX_FRAMES = 40;
+    private static final int RECENT = 50;
+    private static final long LOG_STACK_EVERY_NANOS = TimeUnit.MINUTES.toNanos(1);
+    private static final String APP_PACKAGE = "lostandfound.";
+
+    // The request each event loop is dispatching right now, read by the watchdog
+    private static final Map<Thread, RoutingContext> dispatching = new ConcurrentHashMap<>();
+    private static final Map<Thread, Stall> inProgress = new HashMap<>();
+    private static final List<Thread> loops = new ArrayList<>();
+
+    // Guarded by StallMonitor.class: written by the watchdog, read by the admin endpoint
+    private static final Map<String, Summary> summaries = new HashMap<>();
+    private static final Deque<JsonObject> recent = new ArrayDeque<>();
+    private static long totalStalls;
+
+    private static Thread watchdog;
+
+    // Safe to call more than once; only the first call starts the watchdog. Watches the calling loop too.
+    public static synchronized void start() {
+        watchCurrentLoop();
+        if (watchdog != null) {
+            return;
+        }
+        watchdog = new Thread(StallMonitor::watch, "stall-monitor");
+        watchdog.setDaemon(true);
+        watchdog.start();
+        System.out.println("🐢 Stall monitor on, budget " + TimeUnit.NANOSECONDS.toMillis(BUDGET_NANOS) + "ms");
+    }
+
+    // Called from a verticle's start; a no-op off the event loop
+    public static void watchCurrentLoop() {
+        if (!Context.isOnEventLoopThread()) {
+            return;
+        }
+        Thread thread = Thread.currentThread();
+        synchronized (loops) {
+            if (!loops.contains(thread)) {
+                loops.add(thread);
+            }
+        }
+    }
+
+    // First handler on every route: marks which request this event loop is running while the chain executes
+    public static void track(RoutingContext ctx) {
+        Thread thread = Thread.currentThread();
+        RoutingContext outer = dispatching.put(thread, ctx);
+        try {
+            ctx.next();
+        } finally {
+            if (outer == null) {
+                dispatching.remove(thread);
+            } else {
+                dispatching.put(thread, outer);
+            }
+        }
+    }
+
+    public static synchronized JsonObject stats() {
+        JsonArray byHandler = new JsonArray();
+        summaries.values().stream()
+                .sorted(Comparator.comparingLong((Summary s) -> s.totalNanos).reversed())
+                .forEach(summary -> byHandler.add(summary.toJson()));
+
+        return new JsonObject()
+                .put("budgetMs", TimeUnit.NANOSECONDS.toMillis(BUDGET_NANOS))
+                .put("totalStalls", totalStalls)
+                .put("byHandler", byHandler)
+                .put("recent", new JsonArray(new ArrayList<>(recent)));
+    }
+
+    public static synchronized void reset() {
+        summaries.clear();
+        recent.clear();
+        totalStalls = 0;
+    }
+
+    private static void watch() {
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                Thread.sleep(SAMPLE_MS);
+            } catch (InterruptedException e) {
+                return;
+            }
+            List<Thread> snapshot;
+            synchronized (loops) {
+                snapshot = new ArrayList<>(loops);
+            }
+            for (Thread thread : snapshot) {
+                check(thread, System.nanoTime());
+            }
+        }
+    }
+
+    private static void check(Thread thread, long now) {
+        long taskStart = taskStart(thread);
+        Stall stall = inProgress.get(thread);
+
+        if (stall != null && stall.taskStart != taskStart) {
+            // The stalled task has finished (or a new one started), so the last sample is its length
+            inProgress.remove(thread);
+            finish(stall);
+            stall = null;
+        }
+        if (taskStart == 0 || now - taskStart < BUDGET_NANOS) {
+            return;
+        }
+
+        if (stall == null) {
+            stall = new Stall(thread.getName(), taskStart);
+            inProgress.put(thread, stall);
+        }
+        stall.elapsedNanos = now - taskStart;
+        if (stall.route == null) {
+            stall.route = routeOf(dispatching.get(thread));
+        }
+        if (stall.samples < MAX_SAMPLES) {
+            stall.sample(thread.getStackTrace());
+        }
+    }
+
+    // When the loop's current task started, 0 when idle. This stamp (the one Vert.x's blocked-thread
+    // checker reads) is only exposed by the internal VertxThread; nothing else here touches it.
+    private static long taskStart(Thread thread) {
+        return thread instanceof VertxThread vertxThread ? vertxThread.startTime() : 0;
+    }
+
+    private static String routeOf(RoutingContext ctx) {
+        if (ctx == null) {
+            return null;
+        }
+        Route route = ctx.currentRoute();
+        String template = route == null || route.getPath() == null ? "unmatched" : route.getPath();
+        return ctx.request().method().name() + " " + template;
+    }
+
+    private static void finish(Stall stall) {
+        String route = stall.route == null ? "(callback)" : stall.route;
+        String handler = stall.handler == null ? "(no app frame)" : stall.handler;
+        String key = route + " @ " + handler;
+        long millis = TimeUnit.NANOSECONDS.toMillis(stall.elapsedNanos);
+
+        Metrics.increment("event_loop_stalls_total", "Event-loop tasks that ran over STALL_BUDGET_MS", "route", route);
+
+        boolean logStack;
+        synchronized (StallMonitor.class) {
+            totalStalls++;
+            Summary summary = summaries.computeIfAbsent(key, k -> new Summary(route, handler));
+            summary.count++;
+            summary.totalNanos += stall.elapsedNanos;
+            summary.maxNanos = Math.max(summary.maxNanos, stall.elapsedNanos);
+            summary.lastStack = stall.stack;
+            summary.lastAt = System.currentTimeMillis();
+
+            long now = System.nanoTime();
+            logStack = summary.lastLoggedNanos == 0 || now - summary.lastLoggedNanos > LOG_STACK_EVERY_NANOS;
+            if (logStack) {
+                summary.lastLoggedNanos = now;
+            }
+
+            recent.addFirst(new JsonObject()
+                    .put("at", summary.lastAt)
+                    .put("thread", stall.thread)
+                    .put("route", route)
+                    .put("handler", handler)
+                    .put("durationMs", millis)
+                    .put("samples", stall.samples)
+                    .put("stack", stall.stack));
+            while (recent.size() > RECENT) {
+                recent.removeLast();
+            }
+        }
+
+        System.err.println("🐢 Event loop " + stall.thread + " blocked for at least " + millis + "ms in "
+                + route + " @ " + handler);
+        if (logStack && stall.stack != null) {
+            stall.stack.forEach(frame -> System.err.println("    at " + frame));
+        }
+    }
+
+    private static final class Stall {
+        final String thread;
+        final long taskStart;
+        long elapsedNanos;
+        int samples;
+        String route;
+        String handler;
+        JsonArray stack;
+
+        Stall(String thread, long taskStart) {
+            this.thread = thread;
+            this.taskStart = taskStart;
+        }
+
+        // Keeps the latest sample; the handler is the innermost app frame seen in any sample
+        void sample(StackTraceElement[] frames) {
+            samples++;
+            JsonArray trimmed = new JsonArray();
+            for (int i = 0; i < frames.length && i < MAX_FRAMES; i++) {
+                trimmed.add(frames[i].toString());
+            }
+            stack = trimmed;
+
+            if (handler == null) {
+                for (StackTraceElement frame : frames) {
+                    String className = frame.getClassName();
+                    if (className.startsWith(APP_PACKAGE) && !className.equals(StallMonitor.class.getName())
+                            && !className.equals(RequestMetrics.class.getName())) {
+                        handler = className.substring(className.lastIndexOf('.') + 1) + "." + frame.getMethodName()
+                                + ":" + frame.getLineNumber();
+                        break;
+                    }
+                }
+            }
+        }
+    }
+
+    private static final class Summary {
+        final String route;
+        final String handler;
+        long count;
+        long totalNanos;
+        long maxNanos;
+        long lastAt;
+        long lastLoggedNanos;
+        JsonArray lastStack;
+
+        Summary(String route, String handler) {
+            this.route = route;
+            this.handler = handler;
+        }
+
+        JsonObject toJson() {
+            return new JsonObject()
+                    .put("route", route)
+                    .put("handler", handler)
+                    .put("count", count)
+                    .put("totalMs", TimeUnit.NANOSECONDS.toMillis(totalNanos))
+                    .put("maxMs", TimeUnit.NANOSECONDS.toMillis(maxNanos))
+                    .put("lastAt", lastAt)
+                    .put("lastStack", lastStack);
+        }
+    }
+}
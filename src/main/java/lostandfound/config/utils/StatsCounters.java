@@ -0,0 +1,151 @@
+package lostandfound.config.utils;
+
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import io.vertx.ext.mongo.MongoClient;
+import io.vertx.redis.client.RedisAPI;
+import io.vertx.redis.client.Response;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Admin stats kept as counters in the Redis hash "stats" and bumped by the write paths.
+// Counter updates are best effort; reconcile() recounts from Mongo and swaps the hash in atomically.
+public class StatsCounters {
+    private static final String KEY = "stats";
+    private static final String STATUS_PREFIX = "status:";
+    private static final String CATEGORY_PREFIX = "category:";
+
+    public static void userRegistered() {
+        increment("users", 1);
+    }
+
+    public static void itemPosted(JsonObject item) {
+        increment("items", 1);
+        increment(STATUS_PREFIX + item.getString("status"), 1);
+        increment(CATEGORY_PREFIX + item.getString("categoryId"), 1);
+    }
+
+    public static void itemClaimed(JsonObject item) {
+        if (!item.getBoolean("isClaimed", false)) {
+            increment("claimed", 1);
+        }
+    }
+
+    public static void itemDeleted(JsonObject item) {
+        if (item == null) {
+            return;
+        }
+        increment("items", -1);
+        increment(STATUS_PREFIX + item.getString("status"), -1);
+        increment(CATEGORY_PREFIX + item.getString("categoryId"), -1);
+        if (item.getBoolean("isClaimed", false)) {
+            increment("claimed", -1);
+        }
+    }
+
+    // {users, items, claimed, byStatus: {...}, byCategory: {...}}; empty if never reconciled
+    public static Future<JsonObject> read() {
+        return RedisUtil.getRedis().hgetall(KEY).map(response -> {
+            JsonObject result = new JsonObject();
+            Map<String, Long> counters = toMap(response);
+            if (counters.isEmpty()) {
+                return result;
+            }
+
+            JsonObject byStatus = new JsonObject();
+            JsonObject byCategory = new JsonObject();
+            counters.forEach((field, value) -> {
+                if (field.startsWith(STATUS_PREFIX)) {
+                    byStatus.put(field.substring(STATUS_PREFIX.length()), value);
+                } else if (field.startsWith(CATEGORY_PREFIX)) {
+                    byCategory.put(field.substring(CATEGORY_PREFIX.length()), value);
+                } else {
+                    result.put(field, value);
+                }
+            });
+            return result.put("byStatus", byStatus).put("byCategory", byCategory);
+        });
+    }
+
+    // Recounts everything from Mongo (in parallel) and replaces the hash in one RENAME
+    public static Future<Void> reconcile(MongoClient mongoClient) {
+        Future<Long> users = mongoClient.count("users", new JsonObject());
+        Future<Long> items = mongoClient.count("items", new JsonObject());
+        Future<Long> claimed = mongoClient.count("items", new JsonObject().put("isClaimed", true));
+        Future<List<JsonObject>> byStatus = groupCount(mongoClient, "$status");
+        Future<List<JsonObject>> byCategory = groupCount(mongoClient, "$categoryId");
+
+        return Future.all(users, items, claimed, byStatus, byCategory).compose(all -> {
+            List<String> args = new ArrayList<>();
+            String tempKey = KEY + ":reconcile";
+            args.add(tempKey);
+            addField(args, "users", users.result());
+            addField(args, "items", items.result());
+            addField(args, "claimed", claimed.result());
+            for (JsonObject group : byStatus.result()) {
+                addField(args, STATUS_PREFIX + group.getValue("_id"), group.getLong("count"));
+            }
+            for (JsonObject group : byCategory.result()) {
+                addField(args, CATEGORY_PREFIX + group.getValue("_id"), group.getLong("count"));
+            }
+
+            RedisAPI redis = RedisUtil.getRedis();
+            return redis.del(List.of(tempKey))
+                    .compose(v -> redis.hset(args))
+                    .compose(v -> redis.rename(tempKey, KEY))
+                    .<Void>mapEmpty();
+        });
+    }
+
+    private static Future<List<JsonObject>> groupCount(MongoClient mongoClient, String field) {
+        JsonArray pipeline = new JsonArray()
+                .add(new JsonObject().put("$group", new JsonObject()
+                        .put("_id", field)
+                        .put("count", new JsonObject().put("$sum", 1))));
+
+        Promise<List<JsonObject>> promise = Promise.promise();
+        List<JsonObject> groups = new ArrayList<>();
+        mongoClient.aggregate("items", pipeline)
+                .exceptionHandler(promise::tryFail)
+                .endHandler(v -> promise.tryComplete(groups))
+                .handler(groups::add);
+        return promise.future();
+    }
+
+    private static void addField(List<String> args, String field, Long value) {
+        args.add(field);
+        args.add(String.valueOf(value == null ? 0 : value));
+    }
+
+    private static void increment(String field, long delta) {
+        RedisAPI redis = RedisUtil.getRedis();
+        if (redis == null) {
+            return;
+        }
+        redis.hincrby(KEY, field, String.valueOf(delta))
+                .onFailure(err -> System.err.println("Failed to update stats counter " + field + ": " + err.getMessage()));
+    }
+
+    // HGETALL comes back as a map (RESP3) or a flat key/value list (RESP2)
+    private static Map<String, Long> toMap(Response response) {
+        Map<String, Long> map = new HashMap<>();
+        if (response == null) {
+            return map;
+        }
+        try {
+            for (String key : response.getKeys()) {
+                map.put(key, response.get(key).toLong());
+            }
+        } catch (UnsupportedOperationException e) {
+            for (int i = 0; i + 1 < response.size(); i += 2) {
+                map.put(response.get(i).toString(), response.get(i + 1).toLong());
+            }
+        }
+        return map;
+    }
+}
@@ -0,0 +1,180 @@
+package lostandfound.config.utils;
+
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonObject;
+import io.vertx.redis.client.Command;
+import io.vertx.redis.client.Redis;
+import io.vertx.redis.client.RedisAPI;
+import io.vertx.redis.client.Request;
+import io.vertx.redis.client.Response;
+import lostandfound.config.AppConfig;
+
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+// Local near-cache of logged-out tokens in front of the Redis "blacklist:<token>" keys.
+// A Bloom filter is loaded from Redis at startup and kept current over pub/sub, so a
+// protected request only goes to Redis when the filter says the token might be revoked.
+public class TokenBlacklist {
+    private static final String KEY_PREFIX = "blacklist:";
+    private static final String CHANNEL = "blacklist";
+
+    private static final int EXPECTED_TOKENS = AppConfig.getInt("BLACKLIST_EXPECTED_TOKENS", 100_000);
+    private static final double FALSE_POSITIVE_RATE = 0.001;
+    // Revoked tokens expire after at most 2 hours; rebuilding drops them from the filter
+    private static final long REBUILD_INTERVAL_MS = AppConfig.getLong("BLACKLIST_REBUILD_MINUTES", 60) * 60 * 1000;
+    private static final long RESUBSCRIBE_DELAY_MS = 1000;
+
+    private static volatile BloomFilter filter = newFilter();
+    // Guarded by TokenBlacklist.class: the load in progress also receives adds, and each load gets a
+    // generation; only one started after the current SUBSCRIBE was confirmed can make the filter trusted
+    private static BloomFilter rebuilding;
+    private static long generation;
+    private static long trustedFrom = Long.MAX_VALUE;
+    // Until the first load and subscription are done the filter can't be trusted
+    private static volatile boolean ready;
+    private static boolean started;
+
+    private static Vertx vertx;
+
+    private static final LongAdder skipped = new LongAdder();
+    private static final LongAdder checked = new LongAdder();
+
+    public static synchronized void init(Vertx vertxInstance) {
+        if (started) {
+            return;
+        }
+        started = true;
+        vertx = vertxInstance;
+
+        subscribe();
+        vertx.setPeriodic(REBUILD_INTERVAL_MS, id -> rebuild(false));
+    }
+
+    // False means the token was definitely not revoked (as far as this node has heard)
+    public static boolean mightBeRevoked(String token) {
+        if (ready && !filter.mightContain(token)) {
+            skipped.increment();
+            return false;
+        }
+        checked.increment();
+        return true;
+    }
+
+    public static JsonObject stats() {
+        return new JsonObject()
+                .put("ready", ready)
+                .put("approximateTokens", filter.approximateCount())
+                .put("skippedRedis", skipped.sum())
+                .put("checkedRedis", checked.sum());
+    }
+
+    public static Future<Void> revoke(String token, long ttlSeconds) {
+        RedisAPI redis = RedisUtil.getRedis();
+        add(token); // this node knows right away; other nodes hear it over pub/sub
+
+        return redis.setex(KEY_PREFIX + token, String.valueOf(Math.max(1, ttlSeconds)), "1")
+                .compose(v -> redis.publish(CHANNEL, token))
+                .mapEmpty();
+    }
+
+    // Under the lock so a token can't land in the old filter just as the new one is swapped in
+    private static synchronized void add(String token) {
+        filter.add(token);
+        BloomFilter next = rebuilding;
+        if (next != null) {
+            next.add(token);
+        }
+    }
+
+    private static void subscribe() {
+        Redis.createClient(vertx, RedisUtil.options()).connect()
+                .onFailure(err -> {
+                    System.err.println("Blacklist subscription failed, retrying: " + err.getMessage());
+                    distrust();
+                    vertx.setTimer(RESUBSCRIBE_DELAY_MS, id -> subscribe());
+                })
+                .onSuccess(conn -> {
+                    conn.handler(TokenBlacklist::onMessage);
+                    conn.exceptionHandler(err -> System.err.println("Blacklist subscription error: " + err.getMessage()));
+                    conn.endHandler(v -> {
+                        // Messages may have been missed while disconnected: distrust the filter until reloaded
+                        distrust();
+                        vertx.setTimer(RESUBSCRIBE_DELAY_MS, id -> subscribe());
+                    });
+
+                    conn.send(Request.cmd(Command.SUBSCRIBE).arg(CHANNEL))
+                            .compose(v -> subscribed())
+                            .onFailure(err -> {
+                                System.err.println("Blacklist load failed: " + err.getMessage());
+                                conn.close();
+                            });
+                });
+    }
+
+    // Pub/sub push: ["message", channel, token]
+    private static void onMessage(Response message) {
+        if (message != null && message.size() == 3 && "message".equals(message.get(0).toString())) {
+            add(message.get(2).toString());
+        }
+    }
+
+    private static synchronized void distrust() {
+        ready = false;
+        trustedFrom = Long.MAX_VALUE;
+    }
+
+    // A load already running may have scanned before revocations we missed while disconnected, so start
+    // a new one in its place
+    private static synchronized Future<Void> subscribed() {
+        trustedFrom = generation + 1;
+        return rebuild(true);
+    }
+
+    // Loads every live blacklist key into a fresh filter and swaps it in; a superseded load is discarded
+    private static synchronized Future<Void> rebuild(boolean supersede) {
+        if (rebuilding != null && !supersede) {
+            return Future.succeededFuture();
+        }
+        long loadGeneration = ++generation;
+        BloomFilter next = newFilter();
+        rebuilding = next;
+
+        Promise<Void> promise = Promise.promise();
+        scan("0", next, promise);
+        return promise.future().onComplete(res -> {
+            synchronized (TokenBlacklist.class) {
+                if (loadGeneration != generation) {
+                    return;
+                }
+                rebuilding = null;
+                if (res.succeeded() && loadGeneration >= trustedFrom) {
+                    filter = next;
+                    ready = true;
+                }
+            }
+        });
+    }
+
+    private static void scan(String cursor, BloomFilter next, Promise<Void> promise) {
+        RedisUtil.getRedis().scan(List.of(cursor, "MATCH", KEY_PREFIX + "*", "COUNT", "1000"))
+                .onFailure(promise::fail)
+                .onSuccess(page -> {
+                    for (Response key : page.get(1)) {
+                        next.add(key.toString().substring(KEY_PREFIX.length()));
+                    }
+                    String nextCursor = page.get(0).toString();
+                    if ("0".equals(nextCursor)) {
+                        promise.complete();
+                    } else {
+                        scan(nextCursor, next, promise);
+                    }
+                });
+    }
+
+    private static BloomFilter newFilter() {
+        return new BloomFilter(EXPECTED_TOKENS, FALSE_POSITIVE_RATE);
+    }
+}
@@ -0,0 +1,74 @@
+package lostandfound.config.utils;
+
+import io.vertx.core.json.JsonObject;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+// Bounded LRU of tokens that already passed signature verification.
+// Entries are dropped once the token's own expiry passes.
+public class TokenCache {
+    private static final int MAX_ENTRIES = 10_000;
+
+    private static final Map<String, VerifiedToken> cache = new LinkedHashMap<>(1024, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, VerifiedToken> eldest) {
+            if (size() > MAX_ENTRIES) {
+                evictions.increment();
+                return true;
+            }
+            return false;
+        }
+    };
+
+    private static final LongAdder hits = new LongAdder();
+    private static final LongAdder misses = new LongAdder();
+    private static final LongAdder evictions = new LongAdder();
+
+    public static VerifiedToken get(String token) {
+        VerifiedToken verified;
+        synchronized (cache) {
+            verified = cache.get(token);
+            if (verified != null && verified.isExpired(System.currentTimeMillis())) {
+                cache.remove(token);
+                verified = null;
+            }
+        }
+        if (verified != null) {
+            hits.increment();
+        } else {
+            misses.increment();
+        }
+        return verified;
+    }
+
+    public static void put(String token, VerifiedToken verified) {
+        synchronized (cache) {
+            cache.put(token, verified);
+        }
+    }
+
+    public static void invalidate(String token) {
+        synchronized (cache) {
+            cache.remove(token);
+        }
+    }
+
+    public static JsonObject stats() {
+        long hitCount = hits.sum();
+        long missCount = misses.sum();
+        long total = hitCount + missCount;
+        int size;
+        synchronized (cache) {
+            size = cache.size();
+        }
+        return new JsonObject()
+                .put("size", size)
+                .put("maxSize", MAX_ENTRIES)
+                .put("hits", hitCount)
+                .put("misses", missCount)
+                .put("evictions", evictions.sum())
+                .put("hitRate", total == 0 ? 0.0 : (double) hitCount / total);
+    }
+}
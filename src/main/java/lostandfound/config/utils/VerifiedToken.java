@@ -0,0 +1,9 @@
+package lostandfound.config.utils;
+
+// Claims of a JWT whose signature has already been checked
+public record VerifiedToken(String email, String role, long expiresAt) {
+
+    public boolean isExpired(long now) {
+        return now >= expiresAt;
+    }
+}
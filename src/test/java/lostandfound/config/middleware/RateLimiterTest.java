@@ -0,0 +1,96 @@
+package lostandfound.config.middleware;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Two nodes' buckets for the same key, with an AtomicLong standing in for the shared Redis counter
+class RateLimiterTest {
+    private static final RateLimiter.Limit LIMIT = RateLimiter.Limit.perMinute(5, 1);
+
+    private final AtomicLong redis = new AtomicLong();
+
+    @Test
+    void newBucketCountsWhatOtherNodesAlreadySpent() {
+        RateLimiter.Bucket first = new RateLimiter.Bucket("k", LIMIT);
+        assertEquals(5, takeAll(first, 10));
+        sync(first);
+
+        // The key shows up on the second node only now; one request slips through before its first sync
+        RateLimiter.Bucket second = new RateLimiter.Bucket("k", LIMIT);
+        assertEquals(1, takeAll(second, 1));
+        sync(second);
+
+        assertEquals(0, takeAll(second, 10));
+        assertEquals(6, redis.get());
+    }
+
+    @Test
+    void laterSyncsOnlyCountNewSpendingElsewhere() {
+        RateLimiter.Bucket first = new RateLimiter.Bucket("k", LIMIT);
+        RateLimiter.Bucket second = new RateLimiter.Bucket("k", LIMIT);
+        assertEquals(1, takeAll(first, 1));
+        sync(first);
+        assertEquals(1, takeAll(second, 1));
+        sync(second);
+
+        // first hears about second's one request (and not again about its own): 5 - 2 - 1 left
+        assertEquals(1, takeAll(first, 1));
+        sync(first);
+        assertEquals(2, takeAll(first, 10));
+
+        // second counted first's request and its own on its first sync
+        assertEquals(3, takeAll(second, 10));
+    }
+
+    @Test
+    void ownReportsAreNotCountedTwice() {
+        RateLimiter.Bucket bucket = new RateLimiter.Bucket("k", LIMIT);
+        assertEquals(2, takeAll(bucket, 2));
+        sync(bucket);
+        assertEquals(1, takeAll(bucket, 1));
+        sync(bucket);
+
+        assertEquals(2, takeAll(bucket, 10));
+    }
+
+    @Test
+    void rejectionSaysWhenTheNextTokenIsDue() {
+        RateLimiter.Bucket bucket = new RateLimiter.Bucket("k", LIMIT);
+        takeAll(bucket, 5);
+        long waitNanos = bucket.take(System.nanoTime());
+        assertTrue(waitNanos > 50_000_000_000L && waitNanos <= 60_000_000_000L, "wait " + waitNanos);
+    }
+
+    @Test
+    void malformedLimitFallsBackToTheDefault() {
+        System.setProperty("RATE_LIMIT_LOGIN_IP", "5/x");
+        System.setProperty("RATE_LIMIT_CONTACT_ACCOUNT", "3/1");
+        try {
+            assertEquals(RateLimiter.Limit.perMinute(20, 10), RateLimiter.limit("login", "ip"));
+            assertEquals(RateLimiter.Limit.perMinute(3, 1), RateLimiter.limit("contact", "account"));
+        } finally {
+            System.clearProperty("RATE_LIMIT_LOGIN_IP");
+            System.clearProperty("RATE_LIMIT_CONTACT_ACCOUNT");
+        }
+    }
+
+    private static int takeAll(RateLimiter.Bucket bucket, int attempts) {
+        int taken = 0;
+        for (int i = 0; i < attempts; i++) {
+            if (bucket.take(System.nanoTime()) == 0) {
+                taken++;
+            }
+        }
+        return taken;
+    }
+
+    // What RateLimiter.sync does for one bucket: INCRBY what was spent, merge the new total
+    private void sync(RateLimiter.Bucket bucket) {
+        long spent = bucket.drainPending(System.nanoTime());
+        bucket.merge(redis.addAndGet(spent), spent);
+    }
+}
@@ -0,0 +1,49 @@
+package lostandfound.config.utils;
+
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+// Cursors come back from the client, so anything but the sort keys' plain values must be rejected
+class PaginationTest {
+    private static final JsonObject SORT = Pagination.sort("title", 1);
+
+    @Test
+    void cursorResumesAfterTheLastItem() {
+        JsonObject last = new JsonObject().put("title", "wallet").put("createdAt", 1000L).put("_id", "abc");
+        JsonObject filter = Pagination.afterCursor(Pagination.encodeCursor(SORT, last), SORT);
+
+        JsonArray branches = filter.getJsonArray("$or");
+        assertEquals(3, branches.size());
+        assertEquals(new JsonObject().put("title", "wallet").put("createdAt", 1000L)
+                .put("_id", new JsonObject().put("$lt", "abc")), branches.getJsonObject(2));
+    }
+
+    @Test
+    void operatorsInACursorAreRejected() {
+        assertInvalid(new JsonArray().add(new JsonObject().put("$regex", ".*")).add(1000L).add("abc"));
+        assertInvalid(new JsonArray().add("wallet").add(new JsonObject().put("$ne", null)).add("abc"));
+        assertInvalid(new JsonArray().add("wallet").add(1000L).add(new JsonArray().add("abc")));
+    }
+
+    @Test
+    void valuesOfTheWrongTypeAreRejected() {
+        assertInvalid(new JsonArray().add("wallet").add("yesterday").add("abc"));
+        assertInvalid(new JsonArray().add("wallet").add(1000L).add(42));
+        assertInvalid(new JsonArray().add("wallet").add(1000L).addNull());
+    }
+
+    private static void assertInvalid(JsonArray values) {
+        String cursor = Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(values.encode().getBytes(StandardCharsets.UTF_8));
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> Pagination.afterCursor(cursor, SORT));
+        assertEquals("Invalid cursor", e.getMessage());
+    }
+}